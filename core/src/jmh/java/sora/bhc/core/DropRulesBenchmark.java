@@ -0,0 +1,55 @@
+package sora.bhc.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Cost of one death: the per-type resolution is cached by the mod, so a death only rolls the resolved drops.
+ */
+@State(Scope.Thread)
+public class DropRulesBenchmark {
+
+    @Param({"minecraft:zombie", "minecraft:pig", "minecraft:wither"})
+    public String entity;
+
+    private DropRules rules;
+    private DropRules.Drops drops;
+    private int flags;
+    private final Random rand = new Random(42);
+    private final int[] out = new int[16];
+
+    @Setup
+    public void setup() {
+        BHCConfig config = new BHCConfig();
+        config.addEntrytoMap("red", DropRules.HOSTILE, 0.05);
+        config.addEntrytoMap("yellow", DropRules.BOSS, 1.0);
+        config.addEntrytoMap("green", DropRules.DRAGON, 1.0);
+        config.addEntrytoMap("blue", "minecraft:evoker", 1.0);
+        rules = DropRules.compile(config, category -> {
+            switch (category) {
+                case "red": return 0;
+                case "yellow": return 1;
+                case "green": return 2;
+                case "blue": return 3;
+                default: return -1;
+            }
+        });
+        flags = DropRules.flags(!entity.equals("minecraft:pig"), !entity.equals("minecraft:wither"), false);
+        drops = rules.resolve(entity, flags);
+    }
+
+    @Benchmark
+    public int rollPerDeath() {
+        return drops.isEmpty() ? 0 : drops.roll(rand, out);
+    }
+
+    @Benchmark
+    public DropRules.Drops resolvePerType() {
+        return rules.resolve(entity, flags);
+    }
+}
@@ -0,0 +1,38 @@
+package sora.bhc.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of aggregating one player's hearts: four canister stacks plus a pendant, clamped and totalled, and of
+ * planning a sneak-use heal from a full inventory of hearts.
+ */
+@State(Scope.Thread)
+public class HeartMathBenchmark {
+
+    private final int[] canisters = {10, 7, 3, 12};
+    private final int[] pendant = {20, 20, 6, 0};
+    private final int[] hearts = new int[4];
+    private final int[] heal = {10, 20, 30, 40};
+    private final int[] inventory = {64, 12, 5, 3};
+
+    @Benchmark
+    public int aggregatePerPlayer() {
+        for (int i = 0; i < hearts.length; i++) {
+            hearts[i] = pendant[i];
+            HeartMath.addCanisters(hearts, i, canisters[i]);
+        }
+        return HeartMath.clampAndTotal(hearts, 20);
+    }
+
+    @Benchmark
+    public int totalPerPendant() {
+        return HeartMath.total(pendant, 20);
+    }
+
+    @Benchmark
+    public int[] planHealFromHalfHealth() {
+        return HeartMath.planHeal(57, heal, inventory);
+    }
+}
@@ -0,0 +1,43 @@
+package sora.bhc.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of reading the pendant when it is opened and writing it back when it is closed. Every benchmark works on its
+ * own fixed data, so no invocation sees state left behind by another one.
+ */
+@State(Scope.Thread)
+public class PendantCodecBenchmark {
+
+    private final byte[] stored = PendantCodec.encode(new int[]{10, 4, 0, 7});
+    private final int[] opened = new int[4];
+    private final int[] closed = {12, 5, 0, 7};
+    private final byte[] written = PendantCodec.encode(new int[]{10, 4, 0, 7});
+    private final boolean[] dirty = {true, true, false, false};
+
+    @Benchmark
+    public int[] decodePerOpen() {
+        return PendantCodec.decode(stored, 4);
+    }
+
+    @Benchmark
+    public int[] decodeIntoPerOpen() {
+        PendantCodec.decode(stored, opened);
+        return opened;
+    }
+
+    @Benchmark
+    public byte[] encodePerClose() {
+        return PendantCodec.encode(closed);
+    }
+
+    /**
+     * writes the same two slots on every invocation, so {@code written} is identical after each one
+     */
+    @Benchmark
+    public boolean updateDirtyPerClose() {
+        return PendantCodec.update(written, closed, dirty);
+    }
+}
@@ -0,0 +1,52 @@
+package sora.bhc.core;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class BHCConfig {
+
+    public Map<String, Map<String, Double>> heartEntries = new HashMap<>();
+
+    public BHCConfig() {
+    }
+
+    public void addEntrytoMap(String heartType, String entityName, double chance) {
+        heartEntries.compute(heartType, (s, stringDoubleMap) -> {
+            if (stringDoubleMap == null) stringDoubleMap = new HashMap<>();
+            stringDoubleMap.put(entityName, chance);
+            return stringDoubleMap;
+        });
+    }
+
+    public Map<String, Double> getHeartTypeEntries(String type) {
+        return heartEntries.get(type);
+    }
+
+    /**
+     * @throws IllegalStateException if an entry is missing its name or its chance is not between 0 and 1
+     */
+    public void validate() {
+        if (heartEntries == null) throw new IllegalStateException("missing heartEntries");
+        for (Map.Entry<String, Map<String, Double>> category : heartEntries.entrySet()) {
+            if (category.getValue() == null) throw new IllegalStateException("no entries for heart type " + category.getKey());
+            for (Map.Entry<String, Double> entry : category.getValue().entrySet()) {
+                if (entry.getKey() == null || entry.getKey().isEmpty()) throw new IllegalStateException("empty entity name for heart type " + category.getKey());
+                Double chance = entry.getValue();
+                if (chance == null || !(chance >= 0.0D && chance <= 1.0D)) throw new IllegalStateException("chance for " + category.getKey() + "/" + entry.getKey() + " must be between 0.0 and 1.0, was " + chance);
+            }
+        }
+    }
+
+    /**
+     * @return an unmodifiable copy that can be shared between threads
+     */
+    public BHCConfig freeze() {
+        BHCConfig frozen = new BHCConfig();
+        Map<String, Map<String, Double>> entries = new LinkedHashMap<>();
+        heartEntries.forEach((type, map) -> entries.put(type, Collections.unmodifiableMap(new LinkedHashMap<>(map))));
+        frozen.heartEntries = Collections.unmodifiableMap(entries);
+        return frozen;
+    }
+}
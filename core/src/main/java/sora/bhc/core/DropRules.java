@@ -0,0 +1,162 @@
+package sora.bhc.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Drop rules of a {@link BHCConfig}, compiled into arrays of heart indices and chances. Entity ids match exactly after
+ * the caller's normalization, the "hostile", "boss" and "dragon" keys match by the class flags the caller resolved for
+ * the entity.
+ */
+public class DropRules {
+
+    public static final String HOSTILE = "hostile";
+    public static final String BOSS = "boss";
+    public static final String DRAGON = "dragon";
+
+    public static final int FLAG_HOSTILE = 1;
+    public static final int FLAG_BOSS = 1 << 1;
+    public static final int FLAG_DRAGON = 1 << 2;
+
+    public static final Drops NONE = new Drops(new int[0], new double[0]);
+
+    private final Map<String, Drops> explicit;
+    private final Drops hostile;
+    private final Drops boss;
+    private final Drops dragon;
+
+    private DropRules(Map<String, Drops> explicit, Drops hostile, Drops boss, Drops dragon) {
+        this.explicit = explicit;
+        this.hostile = hostile;
+        this.boss = boss;
+        this.dragon = dragon;
+    }
+
+    /**
+     * @param heartIndex maps a heart category of the config to its index, or -1 to skip the category
+     */
+    public static DropRules compile(BHCConfig config, ToIntFunction<String> heartIndex) {
+        return compile(config, heartIndex, UnaryOperator.identity());
+    }
+
+    /**
+     * @param heartIndex maps a heart category of the config to its index, or -1 to skip the category
+     * @param entityId   maps an entity key of the config to the form {@link #resolve} is called with, keys that map to
+     *                   the same id are merged
+     */
+    public static DropRules compile(BHCConfig config, ToIntFunction<String> heartIndex, UnaryOperator<String> entityId) {
+        Map<String, Builder> explicit = new HashMap<>();
+        Builder hostile = new Builder(), boss = new Builder(), dragon = new Builder();
+        for (Map.Entry<String, Map<String, Double>> category : config.heartEntries.entrySet()) {
+            int heart = heartIndex.applyAsInt(category.getKey());
+            if (heart < 0) continue;
+            for (Map.Entry<String, Double> entry : category.getValue().entrySet()) {
+                switch (entry.getKey()) {
+                    case HOSTILE:
+                        hostile.add(heart, entry.getValue());
+                        break;
+                    case BOSS:
+                        boss.add(heart, entry.getValue());
+                        break;
+                    case DRAGON:
+                        dragon.add(heart, entry.getValue());
+                        break;
+                    default:
+                        explicit.computeIfAbsent(entityId.apply(entry.getKey()), k -> new Builder()).add(heart, entry.getValue());
+                }
+            }
+        }
+        Map<String, Drops> compiled = new HashMap<>();
+        explicit.forEach((name, builder) -> compiled.put(name, builder.build()));
+        return new DropRules(compiled, hostile.build(), boss.build(), dragon.build());
+    }
+
+    /**
+     * @return the entity ids that have explicit rules
+     */
+    public Iterable<String> getEntityIds() {
+        return explicit.keySet();
+    }
+
+    /**
+     * @param flags any combination of {@link #FLAG_HOSTILE}, {@link #FLAG_BOSS} and {@link #FLAG_DRAGON}
+     * @return every rule that applies to the entity, {@link #NONE} if there is none
+     */
+    public Drops resolve(String entityId, int flags) {
+        Builder builder = new Builder();
+        Drops byName = entityId != null ? explicit.get(entityId) : null;
+        if (byName != null) builder.addAll(byName);
+        if ((flags & FLAG_HOSTILE) != 0) builder.addAll(hostile);
+        if ((flags & FLAG_BOSS) != 0) builder.addAll(boss);
+        if ((flags & FLAG_DRAGON) != 0) builder.addAll(dragon);
+        return builder.build();
+    }
+
+    /**
+     * @return the class flags of an entity, following the rules of the original drop handler
+     */
+    public static int flags(boolean monster, boolean nonBoss, boolean dragon) {
+        int flags = 0;
+        if (monster && nonBoss) flags |= FLAG_HOSTILE;
+        if (!nonBoss && !dragon) flags |= FLAG_BOSS;
+        if (dragon) flags |= FLAG_DRAGON;
+        return flags;
+    }
+
+    public static class Drops {
+        public final int[] hearts;
+        public final double[] chances;
+
+        Drops(int[] hearts, double[] chances) {
+            this.hearts = hearts;
+            this.chances = chances;
+        }
+
+        public boolean isEmpty() {
+            return hearts.length == 0;
+        }
+
+        /**
+         * rolls every rule once and writes the heart index of each successful roll to {@code out}
+         *
+         * @return the number of hearts written
+         */
+        public int roll(Random rand, int[] out) {
+            int count = 0;
+            for (int i = 0; i < hearts.length; i++) {
+                if (rand.nextDouble() < chances[i]) out[count++] = hearts[i];
+            }
+            return count;
+        }
+    }
+
+    private static class Builder {
+        private final List<Integer> hearts = new ArrayList<>();
+        private final List<Double> chances = new ArrayList<>();
+
+        void add(int heart, double chance) {
+            hearts.add(heart);
+            chances.add(chance);
+        }
+
+        void addAll(Drops drops) {
+            for (int i = 0; i < drops.hearts.length; i++) add(drops.hearts[i], drops.chances[i]);
+        }
+
+        Drops build() {
+            if (hearts.isEmpty()) return NONE;
+            int[] h = new int[hearts.size()];
+            double[] c = new double[chances.size()];
+            for (int i = 0; i < h.length; i++) {
+                h[i] = hearts.get(i);
+                c[i] = chances.get(i);
+            }
+            return new Drops(h, c);
+        }
+    }
+}
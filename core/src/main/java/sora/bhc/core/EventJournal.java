@@ -0,0 +1,271 @@
+package sora.bhc.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only audit journal. {@link #append} copies a record into a preallocated ring buffer without locking or
+ * allocating and gives up if the ring is full; a background thread drains the ring into memory-mapped files of
+ * fixed size, starting a new file when one is full and deleting the oldest beyond the configured count. If writing
+ * fails the writer stops, reports the error and every later record is rejected. An old file that cannot be deleted,
+ * e.g. because a reader still maps it on Windows, is reported and tried again on the next rotation.
+ * <p>
+ * File layout: a {@value #HEADER}-byte header (magic, version, record size, record count) followed by records of
+ * {@value #RECORD} bytes, see {@link JournalReader}.
+ */
+public class EventJournal {
+
+    public static final int MAGIC = 0x42484A31; //"BHJ1"
+    public static final int VERSION = 1;
+    public static final int HEADER = 16;
+    public static final int RECORD = 48;
+
+    public static final byte DROP = 1;
+    public static final byte CONSUME = 2;
+    public static final byte EQUIP = 3;
+    public static final byte UNEQUIP = 4;
+    public static final byte MAX_HEALTH = 5;
+
+    /** longs per record in the ring */
+    private static final int STRIDE = RECORD / 8;
+
+    private final Path dir;
+    private final int fileSize;
+    private final int maxFiles;
+    private final int capacity;
+    private final long[] ring;
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private final Consumer<IOException> onFailure;
+    private final Consumer<IOException> onDeleteFailure;
+    private volatile boolean running = true;
+    private volatile boolean failed;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int records;
+    private long lastStamp;
+
+    /**
+     * @param capacity number of records the ring holds, a power of two
+     * @param fileSize bytes per journal file
+     */
+    public EventJournal(Path dir, int capacity, int fileSize, int maxFiles) {
+        this(dir, capacity, fileSize, maxFiles, e -> {});
+    }
+
+    /**
+     * @param capacity  number of records the ring holds, a power of two
+     * @param fileSize  bytes per journal file
+     * @param onFailure called on the writer thread with the error that stopped it
+     */
+    public EventJournal(Path dir, int capacity, int fileSize, int maxFiles, Consumer<IOException> onFailure) {
+        this(dir, capacity, fileSize, maxFiles, onFailure, e -> {});
+    }
+
+    /**
+     * @param capacity        number of records the ring holds, a power of two
+     * @param fileSize        bytes per journal file
+     * @param onFailure       called on the writer thread with the error that stopped it
+     * @param onDeleteFailure called on the writer thread when an old file could not be deleted, the writer goes on
+     */
+    public EventJournal(Path dir, int capacity, int fileSize, int maxFiles, Consumer<IOException> onFailure, Consumer<IOException> onDeleteFailure) {
+        if (Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("capacity must be a power of two");
+        this.dir = dir;
+        this.capacity = capacity;
+        this.fileSize = Math.max(HEADER + RECORD, fileSize - (fileSize - HEADER) % RECORD);
+        this.maxFiles = Math.max(1, maxFiles);
+        this.ring = new long[capacity * STRIDE];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) published.set(i, -1L);
+        this.writer = new Thread(this::run, "BHC journal writer");
+        this.writer.setDaemon(true);
+        this.onFailure = onFailure;
+        this.onDeleteFailure = onDeleteFailure;
+    }
+
+    public void start() {
+        writer.start();
+    }
+
+    /**
+     * @return false if the ring was full and the record was dropped, or the writer failed
+     */
+    public boolean append(byte kind, int heart, int amount, long playerMost, long playerLeast, int x, int y, int z, int dimension) {
+        if (failed) return false;
+        long seq;
+        do {
+            seq = claimed.get();
+            if (seq - consumed.get() >= capacity) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!claimed.compareAndSet(seq, seq + 1));
+        int slot = (int) (seq & (capacity - 1));
+        int base = slot * STRIDE;
+        ring[base] = System.currentTimeMillis();
+        ring[base + 1] = (long) (kind & 0xFF) << 56 | (long) (heart & 0xFF) << 48 | amount & 0xFFFFFFFFL;
+        ring[base + 2] = playerMost;
+        ring[base + 3] = playerLeast;
+        ring[base + 4] = (long) x << 32 | y & 0xFFFFFFFFL;
+        ring[base + 5] = (long) z << 32 | dimension & 0xFFFFFFFFL;
+        published.lazySet(slot, seq);
+        return true;
+    }
+
+    /**
+     * @return records that were dropped because the writer could not keep up
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return whether the writer stopped because of an error
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * writes everything still in the ring and closes the current file
+     */
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            Files.createDirectories(dir);
+            while (running) {
+                if (drain() == 0) LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+            }
+            drain();
+        } catch (IOException e) {
+            failed = true;
+            running = false;
+            onFailure.accept(e);
+        } finally {
+            closeFile();
+        }
+    }
+
+    private int drain() throws IOException {
+        int count = 0;
+        long seq = consumed.get();
+        while (true) {
+            int slot = (int) (seq & (capacity - 1));
+            if (published.get(slot) != seq) break;
+            if (buffer == null || buffer.remaining() < RECORD) rotate();
+            int base = slot * STRIDE;
+            for (int i = 0; i < STRIDE; i++) buffer.putLong(ring[base + i]);
+            buffer.putInt(12, ++records);
+            consumed.lazySet(++seq);
+            count++;
+        }
+        if (count > 0) buffer.force();
+        return count;
+    }
+
+    private void rotate() throws IOException {
+        closeFile();
+        List<Path> files = list(dir);
+        for (int i = 0; files.size() - i >= maxFiles; i++) {
+            try {
+                Files.deleteIfExists(files.get(i));
+            } catch (IOException e) {
+                onDeleteFailure.accept(e); //still listed, so the next rotation tries again
+            }
+        }
+        lastStamp = Math.max(System.currentTimeMillis(), lastStamp + 1); //unique even when rotating twice in a millisecond
+        Path file = dir.resolve(String.format("journal-%d.bin", lastStamp));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(RECORD).putInt(0);
+        records = 0;
+    }
+
+    private void closeFile() {
+        if (channel == null) return;
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        channel = null;
+        buffer = null;
+    }
+
+    /**
+     * @return the journal files in the directory, oldest first
+     */
+    public static List<Path> list(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().matches("journal-\\d+\\.bin"))
+                    .sorted((a, b) -> Long.compare(timestamp(a), timestamp(b)))
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    private static long timestamp(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring("journal-".length(), name.length() - ".bin".length()));
+    }
+
+    /**
+     * decodes one record, used by {@link JournalReader}
+     */
+    static String toCsv(ByteBuffer record) {
+        long time = record.getLong();
+        long header = record.getLong();
+        long most = record.getLong();
+        long least = record.getLong();
+        long xy = record.getLong();
+        long zd = record.getLong();
+        return time + "," + kindName((byte) (header >>> 56)) + "," + (byte) (header >>> 48) + "," + (int) header + ","
+                + (most == 0 && least == 0 ? "" : new UUID(most, least).toString()) + ","
+                + (int) (xy >> 32) + "," + (int) xy + "," + (int) (zd >> 32) + "," + (int) zd;
+    }
+
+    static String kindName(byte kind) {
+        switch (kind) {
+            case DROP:
+                return "drop";
+            case CONSUME:
+                return "consume";
+            case EQUIP:
+                return "equip";
+            case UNEQUIP:
+                return "unequip";
+            case MAX_HEALTH:
+                return "max_health";
+            default:
+                return Integer.toString(kind);
+        }
+    }
+}
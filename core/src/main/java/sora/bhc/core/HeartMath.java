@@ -0,0 +1,120 @@
+package sora.bhc.core;
+
+import java.util.Arrays;
+
+/**
+ * Totalling of per-type half hearts, as applied to the max health of a player.
+ */
+public class HeartMath {
+
+    /**
+     * clamps every type to {@code [0, limit]} in place
+     *
+     * @param hearts half hearts per type
+     * @param limit  maximum half hearts per type
+     * @return the sum of the clamped values
+     */
+    public static int clampAndTotal(int[] hearts, int limit) {
+        int total = 0;
+        for (int i = 0; i < hearts.length; i++) {
+            int amount = hearts[i] < 0 ? 0 : Math.min(hearts[i], limit);
+            hearts[i] = amount;
+            total += amount;
+        }
+        return total;
+    }
+
+    /**
+     * clamps every type to {@code [0, limits[type]]} in place
+     *
+     * @param limits maximum half hearts of each type
+     * @return the sum of the clamped values
+     */
+    public static int clampAndTotal(int[] hearts, int[] limits) {
+        int total = 0;
+        for (int i = 0; i < hearts.length; i++) {
+            int amount = hearts[i] < 0 ? 0 : Math.min(hearts[i], limits[i]);
+            hearts[i] = amount;
+            total += amount;
+        }
+        return total;
+    }
+
+    /**
+     * @return the sum of all types, each clamped to {@code [0, limit]}, without modifying the array
+     */
+    public static int total(int[] hearts, int limit) {
+        int total = 0;
+        for (int amount : hearts) total += amount < 0 ? 0 : Math.min(amount, limit);
+        return total;
+    }
+
+    /**
+     * @return the sum of all types, each clamped to {@code [0, limits[type]]}, without modifying the array
+     */
+    public static int total(int[] hearts, int[] limits) {
+        int total = 0;
+        for (int i = 0; i < hearts.length; i++) total += hearts[i] < 0 ? 0 : Math.min(hearts[i], limits[i]);
+        return total;
+    }
+
+    /**
+     * adds {@code count} canisters, worth two half hearts each, to the given type
+     */
+    public static void addCanisters(int[] hearts, int type, int count) {
+        hearts[type] += count * 2;
+    }
+
+    /**
+     * picks the hearts to eat to heal {@code missing} health: the mix that heals the least beyond {@code missing},
+     * then the one with the fewest items; if all available hearts together are not enough, all of them
+     *
+     * @param heal      health restored by one heart of each type
+     * @param available hearts of each type that may be eaten
+     * @return the number of hearts of each type to eat
+     */
+    public static int[] planHeal(int missing, int[] heal, int[] available) {
+        int types = heal.length;
+        int[] plan = new int[types];
+        if (missing <= 0) return plan;
+        int maxHeal = 0;
+        long total = 0;
+        for (int i = 0; i < types; i++) {
+            maxHeal = Math.max(maxHeal, heal[i]);
+            total += (long) heal[i] * available[i];
+        }
+        if (total <= missing) {
+            System.arraycopy(available, 0, plan, 0, types);
+            return plan;
+        }
+        //bounded knapsack over the exact amount healed: items[t][s] = fewest hearts of the first t types healing s
+        int cap = missing + maxHeal;
+        int[][] items = new int[types + 1][cap + 1];
+        int[][] taken = new int[types + 1][cap + 1];
+        Arrays.fill(items[0], Integer.MAX_VALUE);
+        items[0][0] = 0;
+        for (int t = 1; t <= types; t++) {
+            int amount = heal[t - 1];
+            int limit = amount <= 0 ? 0 : Math.min(available[t - 1], cap / amount);
+            for (int s = 0; s <= cap; s++) {
+                int best = items[t - 1][s], bestTaken = 0;
+                for (int k = 1; k <= limit && k * amount <= s; k++) {
+                    int previous = items[t - 1][s - k * amount];
+                    if (previous != Integer.MAX_VALUE && previous + k < best) {
+                        best = previous + k;
+                        bestTaken = k;
+                    }
+                }
+                items[t][s] = best;
+                taken[t][s] = bestTaken;
+            }
+        }
+        int target = missing;
+        while (target <= cap && items[types][target] == Integer.MAX_VALUE) target++;
+        for (int t = types; t > 0 && target <= cap; t--) {
+            plan[t - 1] = taken[t][target];
+            target -= plan[t - 1] * heal[t - 1];
+        }
+        return plan;
+    }
+}
@@ -0,0 +1,53 @@
+package sora.bhc.core;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dumps {@link EventJournal} files as CSV:
+ * {@code java -cp bhc.jar sora.bhc.core.JournalReader <journal dir or files...> > journal.csv}
+ */
+public class JournalReader {
+
+    public static final String CSV_HEADER = "time,kind,heart,amount,player,x,y,z,dimension";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: JournalReader <journal dir or files...>");
+            System.exit(2);
+        }
+        List<Path> files = new ArrayList<>();
+        for (String arg : args) {
+            Path path = Paths.get(arg);
+            if (Files.isDirectory(path)) files.addAll(EventJournal.list(path));
+            else files.add(path);
+        }
+        System.out.println(CSV_HEADER);
+        for (Path file : files) dump(file, System.out);
+    }
+
+    public static void dump(Path file, PrintStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < EventJournal.HEADER || buffer.getInt(0) != EventJournal.MAGIC) throw new IOException(file + " is not a journal file");
+            int recordSize = buffer.getInt(8);
+            int count = buffer.getInt(12);
+            for (int i = 0; i < count; i++) {
+                int offset = EventJournal.HEADER + i * recordSize;
+                if (offset + EventJournal.RECORD > buffer.limit()) break;
+                ByteBuffer record = buffer.duplicate();
+                record.position(offset);
+                out.println(EventJournal.toCsv(record));
+            }
+        }
+    }
+}
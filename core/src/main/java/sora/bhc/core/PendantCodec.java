@@ -0,0 +1,45 @@
+package sora.bhc.core;
+
+/**
+ * Compact storage of the heart pendant: one unsigned byte per heart type slot holding the number of canisters.
+ */
+public class PendantCodec {
+
+    public static final int MAX_COUNT = 0xFF;
+
+    public static byte[] encode(int[] counts) {
+        byte[] stored = new byte[counts.length];
+        for (int i = 0; i < counts.length; i++) stored[i] = encode(counts[i]);
+        return stored;
+    }
+
+    public static byte encode(int count) {
+        return (byte) Math.max(0, Math.min(count, MAX_COUNT));
+    }
+
+    public static int[] decode(byte[] stored, int slots) {
+        int[] counts = new int[slots];
+        decode(stored, counts);
+        return counts;
+    }
+
+    /**
+     * decodes into an existing array, slots missing from {@code stored} are set to 0
+     */
+    public static void decode(byte[] stored, int[] counts) {
+        for (int i = 0; i < counts.length; i++) counts[i] = i < stored.length ? stored[i] & MAX_COUNT : 0;
+    }
+
+    /**
+     * rewrites only the slots flagged in {@code dirty}
+     *
+     * @return false if {@code stored} doesn't match the slot count and has to be encoded from scratch
+     */
+    public static boolean update(byte[] stored, int[] counts, boolean[] dirty) {
+        if (stored.length != counts.length) return false;
+        for (int i = 0; i < counts.length; i++) {
+            if (dirty[i]) stored[i] = encode(counts[i]);
+        }
+        return true;
+    }
+}
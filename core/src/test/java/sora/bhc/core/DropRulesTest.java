@@ -0,0 +1,77 @@
+package sora.bhc.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DropRulesTest {
+
+    private static DropRules compile() {
+        BHCConfig config = new BHCConfig();
+        config.addEntrytoMap("red", DropRules.HOSTILE, 0.05);
+        config.addEntrytoMap("yellow", DropRules.BOSS, 1.0);
+        config.addEntrytoMap("green", DropRules.DRAGON, 1.0);
+        config.addEntrytoMap("blue", "minecraft:evoker", 1.0);
+        config.addEntrytoMap("unknown", "minecraft:zombie", 1.0);
+        return DropRules.compile(config.freeze(), category -> {
+            switch (category) {
+                case "red": return 0;
+                case "yellow": return 1;
+                case "green": return 2;
+                case "blue": return 3;
+                default: return -1;
+            }
+        });
+    }
+
+    @Test
+    public void flagsFollowTheOriginalHandler() {
+        assertEquals(DropRules.FLAG_HOSTILE, DropRules.flags(true, true, false));
+        assertEquals(DropRules.FLAG_BOSS, DropRules.flags(true, false, false));
+        assertEquals(DropRules.FLAG_DRAGON, DropRules.flags(false, false, true));
+        assertEquals(0, DropRules.flags(false, true, false));
+    }
+
+    @Test
+    public void resolvesExplicitAndClassRules() {
+        DropRules rules = compile();
+        DropRules.Drops evoker = rules.resolve("minecraft:evoker", DropRules.flags(true, true, false));
+        assertArrayEquals(new int[]{3, 0}, evoker.hearts);
+        assertArrayEquals(new double[]{1.0, 0.05}, evoker.chances, 0.0);
+        assertArrayEquals(new int[]{2}, rules.resolve("minecraft:ender_dragon", DropRules.flags(true, false, true)).hearts);
+        assertArrayEquals(new int[]{1}, rules.resolve("minecraft:wither", DropRules.flags(true, false, false)).hearts);
+    }
+
+    @Test
+    public void skippedCategoriesAndUnmatchedEntitiesResolveToNone() {
+        DropRules rules = compile();
+        assertSame(DropRules.NONE, rules.resolve("minecraft:zombie", 0));
+        assertSame(DropRules.NONE, rules.resolve(null, 0));
+        assertTrue(DropRules.NONE.isEmpty());
+    }
+
+    @Test
+    public void entityKeysAreNormalizedAndMerged() {
+        BHCConfig config = new BHCConfig();
+        config.addEntrytoMap("red", "zombie", 0.5);
+        config.addEntrytoMap("red", "minecraft:zombie", 0.25);
+        DropRules rules = DropRules.compile(config.freeze(), category -> 0, key -> key.contains(":") ? key : "minecraft:" + key);
+        DropRules.Drops zombie = rules.resolve("minecraft:zombie", 0);
+        assertEquals(2, zombie.chances.length);
+        assertEquals(0.75, zombie.chances[0] + zombie.chances[1], 0.0);
+        assertSame(DropRules.NONE, rules.resolve("zombie", 0));
+    }
+
+    @Test
+    public void rollWritesEverySuccessfulHeart() {
+        DropRules.Drops drops = compile().resolve("minecraft:evoker", DropRules.FLAG_BOSS);
+        int[] out = new int[drops.hearts.length];
+        assertEquals(2, drops.roll(new Random(1), out));
+        assertArrayEquals(new int[]{3, 1}, out);
+    }
+}
@@ -0,0 +1,116 @@
+package sora.bhc.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventJournalTest {
+
+    private Path dir;
+
+    @Before
+    public void createDir() throws IOException {
+        dir = Files.createTempDirectory("bhc-journal");
+    }
+
+    @After
+    public void deleteDir() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) Files.delete(file);
+        }
+    }
+
+    @Test
+    public void recordsRoundTripThroughJournalReader() throws IOException {
+        UUID player = new UUID(0x0123456789ABCDEFL, 0xFEDCBA9876543210L);
+        EventJournal journal = new EventJournal(dir, 16, 4096, 2);
+        journal.start();
+        assertTrue(journal.append(EventJournal.DROP, 2, 1, 0L, 0L, 10, 64, -20, 0));
+        assertTrue(journal.append(EventJournal.CONSUME, 0, 3, player.getMostSignificantBits(), player.getLeastSignificantBits(), -5, 70, 5, -1));
+        assertTrue(journal.append(EventJournal.MAX_HEALTH, -1, 24, player.getMostSignificantBits(), player.getLeastSignificantBits(), 0, 0, 0, 1));
+        journal.close();
+        List<String> lines = dump();
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0), lines.get(0).endsWith(",drop,2,1,,10,64,-20,0"));
+        assertTrue(lines.get(1), lines.get(1).endsWith(",consume,0,3," + player + ",-5,70,5,-1"));
+        assertTrue(lines.get(2), lines.get(2).endsWith(",max_health,-1,24," + player + ",0,0,0,1"));
+        assertEquals(0, journal.getDropped());
+    }
+
+    @Test
+    public void fullRingDropsRecords() {
+        EventJournal journal = new EventJournal(dir, 2, 4096, 1); //writer not started, nothing is drained
+        assertTrue(journal.append(EventJournal.DROP, 0, 1, 0L, 0L, 0, 0, 0, 0));
+        assertTrue(journal.append(EventJournal.DROP, 0, 1, 0L, 0L, 0, 0, 0, 0));
+        assertFalse(journal.append(EventJournal.DROP, 0, 1, 0L, 0L, 0, 0, 0, 0));
+        assertEquals(1, journal.getDropped());
+    }
+
+    @Test
+    public void rotationKeepsTheNewestFiles() throws IOException {
+        EventJournal journal = new EventJournal(dir, 64, EventJournal.HEADER + 2 * EventJournal.RECORD, 2);
+        journal.start();
+        for (int i = 0; i < 7; i++) assertTrue(journal.append(EventJournal.EQUIP, 1, i, 0L, 0L, 0, 0, 0, 0));
+        journal.close();
+        assertEquals(2, EventJournal.list(dir).size());
+        List<String> lines = dump();
+        assertEquals(3, lines.size()); //two in the full file, the seventh in the last one
+        assertTrue(lines.get(2), lines.get(2).contains(",equip,1,6,"));
+    }
+
+    @Test
+    public void writerFailureIsReportedAndRejectsRecords() throws IOException {
+        Path notADir = Files.createFile(dir.resolve("file"));
+        List<IOException> failures = new ArrayList<>();
+        EventJournal journal = new EventJournal(notADir.resolve("journal"), 16, 4096, 1, failures::add);
+        journal.start();
+        journal.close(); //waits for the writer, which fails creating its directory
+        assertEquals(1, failures.size());
+        assertTrue(journal.isFailed());
+        assertFalse(journal.append(EventJournal.DROP, 0, 1, 0L, 0L, 0, 0, 0, 0));
+    }
+
+    @Test
+    public void failedDeleteOfAnOldFileIsNotFatal() throws IOException {
+        Path stuck = Files.createDirectory(dir.resolve("journal-1.bin")); //a non-empty directory cannot be deleted
+        Files.createFile(stuck.resolve("open"));
+        List<IOException> failures = new ArrayList<>();
+        List<IOException> deleteFailures = new ArrayList<>();
+        EventJournal journal = new EventJournal(dir, 16, 4096, 1, failures::add, deleteFailures::add);
+        journal.start();
+        assertTrue(journal.append(EventJournal.DROP, 0, 1, 0L, 0L, 0, 0, 0, 0));
+        journal.close();
+        assertTrue(failures.isEmpty());
+        assertEquals(1, deleteFailures.size());
+        assertFalse(journal.isFailed());
+        assertEquals(2, EventJournal.list(dir).size());
+    }
+
+    private List<String> dump() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PrintStream out = new PrintStream(bytes, true, "UTF-8")) {
+            for (Path file : EventJournal.list(dir)) JournalReader.dump(file, out);
+        }
+        List<String> lines = new ArrayList<>();
+        for (String line : new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\\R")) {
+            if (!line.isEmpty()) lines.add(line);
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,87 @@
+package sora.bhc.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HeartMathTest {
+
+    private static final int[] HEAL = {10, 20, 30, 40};
+
+    @Test
+    public void clampAndTotalClampsInPlace() {
+        int[] hearts = {25, -3, 4, 20};
+        assertEquals(20 + 0 + 4 + 20, HeartMath.clampAndTotal(hearts, 20));
+        assertArrayEquals(new int[]{20, 0, 4, 20}, hearts);
+    }
+
+    @Test
+    public void totalLeavesArrayUntouched() {
+        int[] hearts = {25, -3, 4, 20};
+        assertEquals(44, HeartMath.total(hearts, 20));
+        assertArrayEquals(new int[]{25, -3, 4, 20}, hearts);
+    }
+
+    @Test
+    public void addCanistersCountsHalfHearts() {
+        int[] hearts = new int[4];
+        HeartMath.addCanisters(hearts, 2, 3);
+        assertArrayEquals(new int[]{0, 0, 6, 0}, hearts);
+    }
+
+    @Test
+    public void clampAndTotalUsesPerTypeLimits() {
+        int[] hearts = {25, 25, 25, 25};
+        assertEquals(10 + 20 + 25 + 0, HeartMath.clampAndTotal(hearts, new int[]{10, 20, 30, 0}));
+        assertArrayEquals(new int[]{10, 20, 25, 0}, hearts);
+    }
+
+    @Test
+    public void totalUsesPerTypeLimits() {
+        int[] hearts = {25, -3, 4, 20};
+        assertEquals(34, HeartMath.total(hearts, new int[]{10, 10, 10, 20}));
+        assertArrayEquals(new int[]{25, -3, 4, 20}, hearts);
+    }
+
+    @Test
+    public void planHealMatchesMissingExactly() {
+        assertArrayEquals(new int[]{0, 1, 1, 0}, HeartMath.planHeal(50, HEAL, new int[]{5, 5, 5, 5}));
+    }
+
+    @Test
+    public void planHealPrefersLeastOverheal() {
+        //40 overheals by 5, 10+40 by 15
+        assertArrayEquals(new int[]{0, 0, 0, 1}, HeartMath.planHeal(35, HEAL, new int[]{1, 0, 0, 3}));
+    }
+
+    @Test
+    public void planHealTakesEverythingWhenNotEnough() {
+        assertArrayEquals(new int[]{1, 1, 1, 1}, HeartMath.planHeal(300, HEAL, new int[]{1, 1, 1, 1}));
+    }
+
+    @Test
+    public void planHealRoundsUpToOneHeart() {
+        assertArrayEquals(new int[]{1, 0, 0, 0}, HeartMath.planHeal(7, HEAL, new int[]{64, 0, 0, 0}));
+    }
+
+    @Test
+    public void planHealWithNothingMissingEatsNothing() {
+        assertArrayEquals(new int[4], HeartMath.planHeal(0, HEAL, new int[]{5, 5, 5, 5}));
+    }
+
+    @Test
+    public void planHealNeverExceedsAvailable() {
+        int[] available = {3, 2, 1, 0};
+        for (int missing = 1; missing <= 120; missing++) {
+            int[] plan = HeartMath.planHeal(missing, HEAL, available);
+            int healed = 0;
+            for (int i = 0; i < plan.length; i++) {
+                assertTrue(plan[i] >= 0 && plan[i] <= available[i]);
+                healed += plan[i] * HEAL[i];
+            }
+            if (missing <= 100) assertTrue("missing " + missing, healed >= missing && healed < missing + 10);
+        }
+    }
+}
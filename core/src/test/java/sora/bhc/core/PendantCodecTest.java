@@ -0,0 +1,41 @@
+package sora.bhc.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PendantCodecTest {
+
+    @Test
+    public void encodeDecodeRoundTrip() {
+        int[] counts = {10, 4, 0, 255};
+        assertArrayEquals(counts, PendantCodec.decode(PendantCodec.encode(counts), 4));
+    }
+
+    @Test
+    public void encodeClampsToByteRange() {
+        assertArrayEquals(new int[]{0, 255}, PendantCodec.decode(PendantCodec.encode(new int[]{-1, 300}), 2));
+    }
+
+    @Test
+    public void decodeFillsMissingSlotsWithZero() {
+        assertArrayEquals(new int[]{3, 0, 0}, PendantCodec.decode(new byte[]{3}, 3));
+    }
+
+    @Test
+    public void updateOnlyRewritesDirtySlots() {
+        byte[] stored = PendantCodec.encode(new int[]{10, 4, 0, 7});
+        assertTrue(PendantCodec.update(stored, new int[]{1, 2, 3, 4}, new boolean[]{false, true, false, true}));
+        assertArrayEquals(new int[]{10, 2, 0, 4}, PendantCodec.decode(stored, 4));
+    }
+
+    @Test
+    public void updateRejectsOtherSlotCounts() {
+        byte[] stored = PendantCodec.encode(new int[]{10, 4});
+        assertFalse(PendantCodec.update(stored, new int[]{1, 2, 3}, new boolean[]{true, true, true}));
+        assertEquals(10, stored[0]);
+    }
+}
@@ -0,0 +1,170 @@
+package sora.bhc.migrator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Converts a world offline: {@code level.dat}, which holds the single player's inventory, and every
+ * {@code playerdata/*.dat} and {@code region/*.mca} file below the world directory are read through a memory mapping, the chunks of a region are decoded and rewritten in parallel on a
+ * {@link ForkJoinPool}, and each changed file is replaced atomically. With {@code --dry-run} nothing is written and
+ * only the report is printed.
+ */
+public class Migrator {
+
+    private final PendantRewriter rewriter = new PendantRewriter();
+    private final ForkJoinPool pool;
+    private final boolean dryRun;
+    private final AtomicInteger filesChanged = new AtomicInteger();
+    private final AtomicInteger chunksChanged = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile boolean levelChanged;
+
+    public Migrator(ForkJoinPool pool, boolean dryRun) {
+        this.pool = pool;
+        this.dryRun = dryRun;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path world = null;
+        boolean dryRun = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--dry-run")) dryRun = true;
+            else if (args[i].equals("--threads") && i + 1 < args.length) threads = Integer.parseInt(args[++i]);
+            else world = Paths.get(args[i]);
+        }
+        if (world == null || !Files.isDirectory(world)) {
+            System.err.println("usage: bhc-migrator <world dir> [--dry-run] [--threads n]");
+            System.exit(2);
+        }
+        Migrator migrator = new Migrator(new ForkJoinPool(threads), dryRun);
+        long start = System.nanoTime();
+        migrator.run(world);
+        migrator.report((System.nanoTime() - start) / 1_000_000L);
+        System.exit(migrator.failures.get() == 0 ? 0 : 1);
+    }
+
+    public void run(Path world) throws IOException {
+        List<Path> nbtFiles, regions;
+        try (Stream<Path> files = Files.walk(world)) {
+            List<Path> all = files.filter(Files::isRegularFile).collect(Collectors.toList());
+            nbtFiles = all.stream().filter(p -> p.getParent().getFileName().toString().equals("playerdata") && p.toString().endsWith(".dat")
+                    || p.getParent().equals(world) && p.getFileName().toString().equals("level.dat")).collect(Collectors.toList()); //same format, Data.Player
+            regions = all.stream().filter(p -> p.getParent().getFileName().toString().equals("region") && p.toString().endsWith(".mca")).collect(Collectors.toList());
+        }
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (Path file : nbtFiles) tasks.add(pool.submit(() -> migrateNbt(file)));
+        for (ForkJoinTask<?> task : tasks) task.join();
+        for (Path region : regions) migrateRegion(region); //one file at a time, its chunks in parallel
+    }
+
+    private void migrateNbt(Path file) {
+        try {
+            Nbt.Compound root;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(bytes)))) {
+                    root = Nbt.read(in);
+                }
+            }
+            if (!rewriter.rewrite(root)) return;
+            filesChanged.incrementAndGet();
+            if (file.getFileName().toString().equals("level.dat")) levelChanged = true;
+            System.out.println((dryRun ? "would rewrite " : "rewriting ") + file);
+            if (dryRun) return;
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (DataOutputStream data = new DataOutputStream(new GZIPOutputStream(out))) {
+                Nbt.write(data, root);
+            }
+            replace(file, out.toByteArray());
+        } catch (IOException | RuntimeException e) {
+            failures.incrementAndGet();
+            System.err.println("failed to migrate " + file + ": " + e);
+        }
+    }
+
+    private void migrateRegion(Path file) {
+        try {
+            RegionFile region = RegionFile.read(file);
+            List<ForkJoinTask<Boolean>> tasks = new ArrayList<>();
+            for (int i = 0; i < 1024; i++) {
+                if (!region.has(i)) continue;
+                int index = i;
+                tasks.add(pool.submit(() -> {
+                    Nbt.Compound chunk = region.decode(index);
+                    if (!rewriter.rewrite(chunk)) return false;
+                    if (!dryRun) {
+                        synchronized (region) {
+                            region.encode(index, chunk);
+                        }
+                    }
+                    return true;
+                }));
+            }
+            int changed = 0;
+            for (ForkJoinTask<Boolean> task : tasks) {
+                if (task.join()) changed++;
+            }
+            if (changed == 0) return;
+            chunksChanged.addAndGet(changed);
+            filesChanged.incrementAndGet();
+            System.out.println((dryRun ? "would rewrite " : "rewriting ") + changed + " chunks in " + file);
+            if (!dryRun) replace(file, region.toBytes());
+        } catch (IOException | RuntimeException e) {
+            failures.incrementAndGet();
+            System.err.println("failed to migrate " + file + ": " + e);
+        }
+    }
+
+    /**
+     * writes the new contents next to the file, flushes them to disk and moves them over the original
+     */
+    private static void replace(Path file, byte[] contents) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".bhc-tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(contents);
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void report(long millis) {
+        System.out.println(dryRun ? "Dry run, nothing was written." : "Migration finished.");
+        System.out.println("  files changed:      " + filesChanged.get());
+        System.out.println("  level.dat changed:  " + (levelChanged ? "yes" : "no"));
+        System.out.println("  chunks changed:     " + chunksChanged.get());
+        System.out.println("  pendants converted: " + rewriter.pendants.sum());
+        System.out.println("  items renamed:      " + rewriter.renamed.sum());
+        System.out.println("  damage removed:     " + rewriter.damageRemoved.sum());
+        System.out.println("  failures:           " + failures.get());
+        System.out.println("  time:               " + millis + " ms");
+    }
+}
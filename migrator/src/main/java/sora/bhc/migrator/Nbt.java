@@ -0,0 +1,164 @@
+package sora.bhc.migrator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Minimal NBT reader and writer. Tags are plain Java values: {@link Byte}, {@link Short}, {@link Integer},
+ * {@link Long}, {@link Float}, {@link Double}, {@code byte[]}, {@link String}, {@link ListTag}, {@link Compound},
+ * {@code int[]} and {@code long[]}.
+ */
+public class Nbt {
+
+    public static final byte END = 0;
+    public static final byte BYTE = 1;
+    public static final byte SHORT = 2;
+    public static final byte INT = 3;
+    public static final byte LONG = 4;
+    public static final byte FLOAT = 5;
+    public static final byte DOUBLE = 6;
+    public static final byte BYTE_ARRAY = 7;
+    public static final byte STRING = 8;
+    public static final byte LIST = 9;
+    public static final byte COMPOUND = 10;
+    public static final byte INT_ARRAY = 11;
+    public static final byte LONG_ARRAY = 12;
+
+    private static final int MAX_DEPTH = 512;
+
+    public static class Compound extends LinkedHashMap<String, Object> {
+        private static final long serialVersionUID = 1L;
+    }
+
+    public static class ListTag extends ArrayList<Object> {
+        private static final long serialVersionUID = 1L;
+
+        public byte type;
+
+        public ListTag(byte type, int size) {
+            super(size);
+            this.type = type;
+        }
+    }
+
+    /**
+     * reads a named root compound; the root name is dropped since no file this migrator touches uses it
+     */
+    public static Compound read(DataInput in) throws IOException {
+        byte type = in.readByte();
+        if (type != COMPOUND) throw new IOException("root tag is not a compound but " + type);
+        in.readUTF();
+        return (Compound) readPayload(in, COMPOUND, 0);
+    }
+
+    public static void write(DataOutput out, Compound root) throws IOException {
+        out.writeByte(COMPOUND);
+        out.writeUTF("");
+        writePayload(out, root);
+    }
+
+    private static Object readPayload(DataInput in, byte type, int depth) throws IOException {
+        if (depth > MAX_DEPTH) throw new IOException("tag nested too deeply");
+        switch (type) {
+            case BYTE:
+                return in.readByte();
+            case SHORT:
+                return in.readShort();
+            case INT:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case FLOAT:
+                return in.readFloat();
+            case DOUBLE:
+                return in.readDouble();
+            case BYTE_ARRAY: {
+                byte[] value = new byte[in.readInt()];
+                in.readFully(value);
+                return value;
+            }
+            case STRING:
+                return in.readUTF();
+            case LIST: {
+                byte elementType = in.readByte();
+                int size = in.readInt();
+                ListTag list = new ListTag(elementType, Math.max(0, size));
+                for (int i = 0; i < size; i++) list.add(readPayload(in, elementType, depth + 1));
+                return list;
+            }
+            case COMPOUND: {
+                Compound compound = new Compound();
+                byte child;
+                while ((child = in.readByte()) != END) {
+                    String name = in.readUTF();
+                    compound.put(name, readPayload(in, child, depth + 1));
+                }
+                return compound;
+            }
+            case INT_ARRAY: {
+                int[] value = new int[in.readInt()];
+                for (int i = 0; i < value.length; i++) value[i] = in.readInt();
+                return value;
+            }
+            case LONG_ARRAY: {
+                long[] value = new long[in.readInt()];
+                for (int i = 0; i < value.length; i++) value[i] = in.readLong();
+                return value;
+            }
+            default:
+                throw new IOException("unknown tag type " + type);
+        }
+    }
+
+    private static void writePayload(DataOutput out, Object value) throws IOException {
+        if (value instanceof Byte) out.writeByte((Byte) value);
+        else if (value instanceof Short) out.writeShort((Short) value);
+        else if (value instanceof Integer) out.writeInt((Integer) value);
+        else if (value instanceof Long) out.writeLong((Long) value);
+        else if (value instanceof Float) out.writeFloat((Float) value);
+        else if (value instanceof Double) out.writeDouble((Double) value);
+        else if (value instanceof byte[]) {
+            out.writeInt(((byte[]) value).length);
+            out.write((byte[]) value);
+        } else if (value instanceof String) out.writeUTF((String) value);
+        else if (value instanceof ListTag) {
+            ListTag list = (ListTag) value;
+            out.writeByte(list.isEmpty() ? list.type : typeOf(list.get(0)));
+            out.writeInt(list.size());
+            for (Object element : list) writePayload(out, element);
+        } else if (value instanceof Compound) {
+            for (Map.Entry<String, Object> entry : ((Compound) value).entrySet()) {
+                out.writeByte(typeOf(entry.getValue()));
+                out.writeUTF(entry.getKey());
+                writePayload(out, entry.getValue());
+            }
+            out.writeByte(END);
+        } else if (value instanceof int[]) {
+            out.writeInt(((int[]) value).length);
+            for (int i : (int[]) value) out.writeInt(i);
+        } else if (value instanceof long[]) {
+            out.writeInt(((long[]) value).length);
+            for (long l : (long[]) value) out.writeLong(l);
+        } else throw new IOException("not a tag: " + value);
+    }
+
+    private static byte typeOf(Object value) throws IOException {
+        if (value instanceof Byte) return BYTE;
+        if (value instanceof Short) return SHORT;
+        if (value instanceof Integer) return INT;
+        if (value instanceof Long) return LONG;
+        if (value instanceof Float) return FLOAT;
+        if (value instanceof Double) return DOUBLE;
+        if (value instanceof byte[]) return BYTE_ARRAY;
+        if (value instanceof String) return STRING;
+        if (value instanceof ListTag) return LIST;
+        if (value instanceof Compound) return COMPOUND;
+        if (value instanceof int[]) return INT_ARRAY;
+        if (value instanceof long[]) return LONG_ARRAY;
+        throw new IOException("not a tag: " + value);
+    }
+}
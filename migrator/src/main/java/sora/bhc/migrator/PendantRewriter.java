@@ -0,0 +1,103 @@
+package sora.bhc.migrator;
+
+import sora.bhc.core.PendantCodec;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rewrites every item stack of the mod found anywhere in an NBT tree: 1.12 item ids are renamed, the top level
+ * damage value of 1.12 stacks is dropped, and heart amulets storing their contents as {@code bhc_itemlist} or
+ * {@code heart_amount} get the current one byte per slot {@code bhc_hearts} array instead.
+ */
+public class PendantRewriter {
+
+    /** slots of the heart amulet: red, yellow, green, blue */
+    public static final int SLOTS = 4;
+
+    private static final String HEARTS = "bhc_hearts";
+    private static final String ITEMLIST = "bhc_itemlist";
+    private static final String HEART_AMOUNT = "heart_amount";
+    private static final String AMULET = "bhc:heart_amulet";
+
+    private static final Map<String, String> RENAMES = new HashMap<>();
+
+    static {
+        RENAMES.put("bhc:orange_heart", "bhc:yellow_heart");
+        RENAMES.put("bhc:orange_heart_canister", "bhc:yellow_heart_canister");
+    }
+
+    public final LongAdder renamed = new LongAdder();
+    public final LongAdder damageRemoved = new LongAdder();
+    public final LongAdder pendants = new LongAdder();
+
+    /**
+     * @return whether anything in the tree was changed
+     */
+    public boolean rewrite(Object tag) {
+        boolean changed = false;
+        if (tag instanceof Nbt.Compound) {
+            Nbt.Compound compound = (Nbt.Compound) tag;
+            if (compound.get("id") instanceof String) changed = rewriteStack(compound);
+            for (Object child : compound.values()) changed |= rewrite(child);
+        } else if (tag instanceof Nbt.ListTag) {
+            for (Object child : (Nbt.ListTag) tag) changed |= rewrite(child);
+        }
+        return changed;
+    }
+
+    private boolean rewriteStack(Nbt.Compound stack) {
+        boolean changed = false;
+        String id = (String) stack.get("id");
+        String renamedId = RENAMES.get(id);
+        if (renamedId != null) {
+            stack.put("id", renamedId);
+            id = renamedId;
+            renamed.increment();
+            changed = true;
+        }
+        if (!id.startsWith("bhc:")) return changed;
+        if (stack.containsKey("Count") && stack.remove("Damage") != null) { //none of the items are damageable
+            damageRemoved.increment();
+            changed = true;
+        }
+        Object tag = stack.get("tag");
+        if (AMULET.equals(id) && tag instanceof Nbt.Compound) changed |= rewritePendant((Nbt.Compound) tag);
+        return changed;
+    }
+
+    private boolean rewritePendant(Nbt.Compound tag) {
+        Object itemList = tag.remove(ITEMLIST);
+        Object amounts = tag.remove(HEART_AMOUNT);
+        if (itemList == null && amounts == null) return false;
+        if (!(tag.get(HEARTS) instanceof byte[])) {
+            int[] counts = new int[SLOTS];
+            if (itemList instanceof Nbt.Compound) readItemList((Nbt.Compound) itemList, counts);
+            else if (amounts instanceof int[]) {
+                int[] halfHearts = (int[]) amounts;
+                for (int i = 0; i < Math.min(SLOTS, halfHearts.length); i++) counts[i] = halfHearts[i] / 2;
+            }
+            tag.put(HEARTS, PendantCodec.encode(counts));
+        }
+        pendants.increment();
+        return true;
+    }
+
+    /**
+     * reads the canister counts of a serialized ItemStackHandler
+     */
+    private static void readItemList(Nbt.Compound itemList, int[] counts) {
+        Object items = itemList.get("Items");
+        if (!(items instanceof Nbt.ListTag)) return;
+        for (Object item : (Nbt.ListTag) items) {
+            if (!(item instanceof Nbt.Compound)) continue;
+            Object slot = ((Nbt.Compound) item).get("Slot");
+            Object count = ((Nbt.Compound) item).get("Count");
+            if (slot instanceof Number && count instanceof Number) {
+                int index = ((Number) slot).intValue();
+                if (index >= 0 && index < counts.length) counts[index] = ((Number) count).intValue() & 0xFF;
+            }
+        }
+    }
+}
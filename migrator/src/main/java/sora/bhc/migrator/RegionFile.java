@@ -0,0 +1,120 @@
+package sora.bhc.migrator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads the chunks of an Anvil region file from a read-only memory mapping and writes them back as a compact region
+ * file. Each of the 1024 chunks is stored as raw, still compressed bytes until it is decoded.
+ */
+public class RegionFile {
+
+    private static final int SECTOR = 4096;
+    private static final int CHUNKS = 1024;
+
+    public static final byte GZIP = 1;
+    public static final byte ZLIB = 2;
+    public static final byte NONE = 3;
+
+    private final int[] timestamps = new int[CHUNKS];
+    private final byte[] compression = new byte[CHUNKS];
+    private final byte[][] data = new byte[CHUNKS][];
+
+    public static RegionFile read(Path file) throws IOException {
+        RegionFile region = new RegionFile();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < 2 * SECTOR) return region; //empty region
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            for (int i = 0; i < CHUNKS; i++) {
+                int location = buffer.getInt(i * 4);
+                region.timestamps[i] = buffer.getInt(SECTOR + i * 4);
+                if (location == 0) continue;
+                long offset = (long) (location >>> 8) * SECTOR;
+                if (offset + 5 > buffer.limit()) throw new IOException(file + ": chunk " + i + " points past the end of the file");
+                int length = buffer.getInt((int) offset);
+                if (length <= 1 || offset + 4 + length > buffer.limit()) throw new IOException(file + ": chunk " + i + " has an invalid length");
+                region.compression[i] = buffer.get((int) offset + 4);
+                byte[] bytes = new byte[length - 1];
+                ByteBuffer slice = buffer.duplicate();
+                slice.position((int) offset + 5);
+                slice.get(bytes);
+                region.data[i] = bytes;
+            }
+        }
+        return region;
+    }
+
+    public boolean has(int index) {
+        return data[index] != null;
+    }
+
+    public Nbt.Compound decode(int index) throws IOException {
+        try (DataInputStream in = new DataInputStream(decompress(compression[index], new ByteArrayInputStream(data[index])))) {
+            return Nbt.read(in);
+        }
+    }
+
+    /**
+     * replaces the chunk with the given tag, stored zlib compressed like the game does
+     */
+    public void encode(int index, Nbt.Compound chunk) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            Nbt.write(out, chunk);
+        }
+        data[index] = bytes.toByteArray();
+        compression[index] = ZLIB;
+    }
+
+    /**
+     * @return the whole region file with the chunks packed one after another from the third sector on
+     * @throws IOException if a chunk needs more than the 255 sectors its header entry can address
+     */
+    public byte[] toBytes() throws IOException {
+        int sectors = 2;
+        int[] locations = new int[CHUNKS];
+        for (int i = 0; i < CHUNKS; i++) {
+            if (data[i] == null) continue;
+            int count = (data[i].length + 5 + SECTOR - 1) / SECTOR;
+            if (count > 0xFF) throw new IOException("chunk " + i + " needs " + count + " sectors, more than a region file can hold");
+            locations[i] = sectors << 8 | count;
+            sectors += count;
+        }
+        ByteBuffer out = ByteBuffer.allocate(sectors * SECTOR);
+        for (int i = 0; i < CHUNKS; i++) {
+            out.putInt(i * 4, locations[i]);
+            out.putInt(SECTOR + i * 4, timestamps[i]);
+            if (data[i] == null) continue;
+            out.position((locations[i] >>> 8) * SECTOR);
+            out.putInt(data[i].length + 1);
+            out.put(compression[i]);
+            out.put(data[i]);
+        }
+        return out.array();
+    }
+
+    static InputStream decompress(byte type, InputStream in) throws IOException {
+        switch (type) {
+            case GZIP:
+                return new GZIPInputStream(in);
+            case ZLIB:
+                return new InflaterInputStream(in);
+            case NONE:
+                return in;
+            default:
+                throw new IOException("unknown chunk compression " + type);
+        }
+    }
+}
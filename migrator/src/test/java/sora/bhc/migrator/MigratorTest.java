@@ -0,0 +1,54 @@
+package sora.bhc.migrator;
+
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class MigratorTest {
+
+    @Test
+    public void levelDatPlayerIsRewritten() throws IOException {
+        Path world = Files.createTempDirectory("bhc-world");
+        try {
+            Nbt.Compound heart = new Nbt.Compound();
+            heart.put("id", "bhc:orange_heart");
+            heart.put("Count", (byte) 1);
+            Nbt.ListTag inventory = new Nbt.ListTag(Nbt.COMPOUND, 1);
+            inventory.add(heart);
+            Nbt.Compound player = new Nbt.Compound();
+            player.put("Inventory", inventory);
+            Nbt.Compound data = new Nbt.Compound();
+            data.put("Player", player);
+            Nbt.Compound level = new Nbt.Compound();
+            level.put("Data", data);
+            Path file = world.resolve("level.dat");
+            try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(file)))) {
+                Nbt.write(out, level);
+            }
+
+            new Migrator(ForkJoinPool.commonPool(), false).run(world);
+
+            try (DataInputStream in = new DataInputStream(new GZIPInputStream(Files.newInputStream(file)))) {
+                Nbt.Compound read = Nbt.read(in);
+                Nbt.Compound readPlayer = (Nbt.Compound) ((Nbt.Compound) read.get("Data")).get("Player");
+                Nbt.Compound readHeart = (Nbt.Compound) ((Nbt.ListTag) readPlayer.get("Inventory")).get(0);
+                assertEquals("bhc:yellow_heart", readHeart.get("id"));
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(world)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package sora.bhc.migrator;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NbtTest {
+
+    @Test
+    public void roundTripKeepsEveryTagType() throws IOException {
+        Nbt.Compound root = new Nbt.Compound();
+        root.put("byte", (byte) -3);
+        root.put("short", (short) 300);
+        root.put("int", 70000);
+        root.put("long", 1L << 40);
+        root.put("float", 1.5F);
+        root.put("double", -0.25D);
+        root.put("bytes", new byte[]{1, 2, 3});
+        root.put("string", "bhc:heart_amulet");
+        root.put("ints", new int[]{20, 6, 0, 3});
+        root.put("longs", new long[]{-1L, 5L});
+        Nbt.ListTag items = new Nbt.ListTag(Nbt.COMPOUND, 1);
+        Nbt.Compound item = new Nbt.Compound();
+        item.put("Slot", (byte) 2);
+        items.add(item);
+        root.put("list", items);
+        root.put("empty", new Nbt.ListTag(Nbt.STRING, 0));
+
+        Nbt.Compound read = roundTrip(root);
+
+        assertEquals((byte) -3, read.get("byte"));
+        assertEquals((short) 300, read.get("short"));
+        assertEquals(70000, read.get("int"));
+        assertEquals(1L << 40, read.get("long"));
+        assertEquals(1.5F, read.get("float"));
+        assertEquals(-0.25D, read.get("double"));
+        assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) read.get("bytes"));
+        assertEquals("bhc:heart_amulet", read.get("string"));
+        assertArrayEquals(new int[]{20, 6, 0, 3}, (int[]) read.get("ints"));
+        assertArrayEquals(new long[]{-1L, 5L}, (long[]) read.get("longs"));
+        Nbt.ListTag list = (Nbt.ListTag) read.get("list");
+        assertEquals(Nbt.COMPOUND, list.type);
+        assertEquals(item, list.get(0));
+        Nbt.ListTag empty = (Nbt.ListTag) read.get("empty");
+        assertEquals(Nbt.STRING, empty.type);
+        assertTrue(empty.isEmpty());
+    }
+
+    @Test
+    public void roundTripKeepsKeyOrder() throws IOException {
+        Nbt.Compound root = new Nbt.Compound();
+        root.put("z", 1);
+        root.put("a", 2);
+        root.put("m", 3);
+        assertArrayEquals(new Object[]{"z", "a", "m"}, roundTrip(root).keySet().toArray());
+    }
+
+    @Test(expected = IOException.class)
+    public void readRejectsOtherRootTags() throws IOException {
+        Nbt.read(new DataInputStream(new ByteArrayInputStream(new byte[]{Nbt.LIST, 0, 0})));
+    }
+
+    static Nbt.Compound roundTrip(Nbt.Compound root) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            Nbt.write(out, root);
+        }
+        return Nbt.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+}
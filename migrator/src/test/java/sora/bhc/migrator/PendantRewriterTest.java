@@ -0,0 +1,99 @@
+package sora.bhc.migrator;
+
+import org.junit.Test;
+import sora.bhc.core.PendantCodec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PendantRewriterTest {
+
+    @Test
+    public void itemListBecomesHeartBytes() {
+        Nbt.ListTag items = new Nbt.ListTag(Nbt.COMPOUND, 2);
+        items.add(slot(0, 5));
+        items.add(slot(3, 2));
+        Nbt.Compound itemList = new Nbt.Compound();
+        itemList.put("Items", items);
+        itemList.put("Size", 4);
+        Nbt.Compound tag = new Nbt.Compound();
+        tag.put("bhc_itemlist", itemList);
+        Nbt.Compound amulet = stack("bhc:heart_amulet", tag);
+
+        PendantRewriter rewriter = new PendantRewriter();
+        assertTrue(rewriter.rewrite(amulet));
+
+        assertFalse(tag.containsKey("bhc_itemlist"));
+        assertArrayEquals(new int[]{5, 0, 0, 2}, PendantCodec.decode((byte[]) tag.get("bhc_hearts"), PendantRewriter.SLOTS));
+        assertEquals(1, rewriter.pendants.sum());
+    }
+
+    @Test
+    public void heartAmountIsHalved() {
+        Nbt.Compound tag = new Nbt.Compound();
+        tag.put("heart_amount", new int[]{20, 7, 0, 2});
+        PendantRewriter rewriter = new PendantRewriter();
+
+        assertTrue(rewriter.rewrite(stack("bhc:heart_amulet", tag)));
+
+        assertFalse(tag.containsKey("heart_amount"));
+        assertArrayEquals(new int[]{10, 3, 0, 1}, PendantCodec.decode((byte[]) tag.get("bhc_hearts"), PendantRewriter.SLOTS));
+    }
+
+    @Test
+    public void currentHeartsWinOverLegacyData() {
+        byte[] hearts = PendantCodec.encode(new int[]{1, 2, 3, 4});
+        Nbt.Compound tag = new Nbt.Compound();
+        tag.put("bhc_hearts", hearts);
+        tag.put("heart_amount", new int[]{20, 20, 20, 20});
+
+        assertTrue(new PendantRewriter().rewrite(stack("bhc:heart_amulet", tag)));
+
+        assertFalse(tag.containsKey("heart_amount"));
+        assertArrayEquals(hearts, (byte[]) tag.get("bhc_hearts"));
+    }
+
+    @Test
+    public void renamesItemsAndDropsDamageInNestedLists() {
+        Nbt.Compound heart = stack("bhc:orange_heart", null);
+        heart.put("Damage", (short) 0);
+        Nbt.ListTag inventory = new Nbt.ListTag(Nbt.COMPOUND, 2);
+        inventory.add(heart);
+        inventory.add(stack("minecraft:stone", null));
+        Nbt.Compound player = new Nbt.Compound();
+        player.put("Inventory", inventory);
+        PendantRewriter rewriter = new PendantRewriter();
+
+        assertTrue(rewriter.rewrite(player));
+
+        assertEquals("bhc:yellow_heart", heart.get("id"));
+        assertFalse(heart.containsKey("Damage"));
+        assertEquals(1, rewriter.renamed.sum());
+        assertEquals(1, rewriter.damageRemoved.sum());
+    }
+
+    @Test
+    public void leavesCurrentDataAlone() {
+        Nbt.Compound tag = new Nbt.Compound();
+        tag.put("bhc_hearts", PendantCodec.encode(new int[]{1, 0, 0, 0}));
+        assertFalse(new PendantRewriter().rewrite(stack("bhc:heart_amulet", tag)));
+        assertFalse(new PendantRewriter().rewrite(stack("minecraft:stone", null)));
+    }
+
+    private static Nbt.Compound stack(String id, Nbt.Compound tag) {
+        Nbt.Compound stack = new Nbt.Compound();
+        stack.put("id", id);
+        stack.put("Count", (byte) 1);
+        if (tag != null) stack.put("tag", tag);
+        return stack;
+    }
+
+    private static Nbt.Compound slot(int slot, int count) {
+        Nbt.Compound item = stack("bhc:red_heart_canister", null);
+        item.put("Slot", (byte) slot);
+        item.put("Count", (byte) count);
+        return item;
+    }
+}
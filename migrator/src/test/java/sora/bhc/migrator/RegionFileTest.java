@@ -0,0 +1,45 @@
+package sora.bhc.migrator;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RegionFileTest {
+
+    @Test
+    public void encodedChunksReadBack() throws IOException {
+        RegionFile region = new RegionFile();
+        Nbt.Compound chunk = new Nbt.Compound();
+        chunk.put("DataVersion", 2230);
+        region.encode(5, chunk);
+
+        Path file = Files.createTempFile("bhc-region", ".mca");
+        try {
+            Files.write(file, region.toBytes());
+            RegionFile read = RegionFile.read(file);
+            assertTrue(read.has(5));
+            assertFalse(read.has(6));
+            assertEquals(chunk, read.decode(5));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void chunksOverTheSectorLimitFail() throws IOException {
+        byte[] noise = new byte[1100 * 1024];
+        new Random(1).nextBytes(noise);
+        Nbt.Compound chunk = new Nbt.Compound();
+        chunk.put("noise", noise);
+        RegionFile region = new RegionFile();
+        region.encode(0, chunk);
+        region.toBytes();
+    }
+}
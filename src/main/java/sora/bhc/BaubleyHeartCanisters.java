@@ -1,36 +1,49 @@
 package sora.bhc;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonParser;
+import net.minecraft.advancements.CriteriaTriggers;
 import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.DeferredWorkQueue;
 import net.minecraftforge.fml.DistExecutor;
+import net.minecraftforge.fml.InterModComms;
 import net.minecraftforge.fml.ModLoadingContext;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.config.ModConfig;
+import net.minecraftforge.fml.event.lifecycle.FMLClientSetupEvent;
 import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
+import net.minecraftforge.fml.event.lifecycle.InterModEnqueueEvent;
+import net.minecraftforge.fml.event.server.FMLServerStartingEvent;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
-import net.minecraftforge.fml.loading.FMLPaths;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import sora.bhc.handler.BHCConfig;
+import sora.bhc.advancements.ModTriggers;
+import sora.bhc.capability.HeartLedger;
+import sora.bhc.capability.HeartSummary;
+import sora.bhc.command.BHCCommand;
 import sora.bhc.handler.ConfigHandler;
+import sora.bhc.handler.DropConfigLoader;
+import sora.bhc.metrics.BHCMetrics;
+import sora.bhc.network.PacketHandler;
 import sora.bhc.proxy.ClientProxy;
 import sora.bhc.proxy.CommonProxy;
 import sora.bhc.proxy.IProxy;
-
-import java.io.*;
+import top.theillusivec4.curios.api.CuriosAPI;
+import top.theillusivec4.curios.api.imc.CurioIMCMessage;
 
 @Mod(BaubleyHeartCanisters.MODID)
 public class BaubleyHeartCanisters {
 
   private static IProxy proxy = DistExecutor.runForDist(() -> () -> new ClientProxy(), () -> () -> new CommonProxy());
   public static final String MODID = "bhc";
-  public static final Logger LOGGER = LogManager.getLogger();  public static BHCConfig config;
+  public static final Logger LOGGER = LogManager.getLogger();
 
   public BaubleyHeartCanisters() {
     FMLJavaModLoadingContext.get().getModEventBus().addListener(this::setup);
-    ModLoadingContext.get().registerConfig(ModConfig.Type.COMMON, ConfigHandler.configSpec);
+    FMLJavaModLoadingContext.get().getModEventBus().addListener(this::clientSetup);
+    FMLJavaModLoadingContext.get().getModEventBus().addListener(this::enqueueIMC);
+    ConfigHandler.migrateCommonConfig();
+    ModLoadingContext.get().registerConfig(ModConfig.Type.SERVER, ConfigHandler.configSpec);
+    ModLoadingContext.get().registerConfig(ModConfig.Type.CLIENT, ConfigHandler.clientSpec);
     MinecraftForge.EVENT_BUS.register(this);
   }
 
@@ -39,32 +52,27 @@ public class BaubleyHeartCanisters {
   }
 
   private void setup(FMLCommonSetupEvent event) {
+    HeartSummary.register();
+    HeartLedger.register();
+    PacketHandler.register();
+    DeferredWorkQueue.runLater(() -> CriteriaTriggers.register(ModTriggers.HEART_ITEM)); //the trigger map is not thread safe
     proxy.CommonSetup();
-    jsonSetup();
+    DropConfigLoader.loadAsync();
+    BHCMetrics.registerMBean();
+  }
+
+  private void clientSetup(FMLClientSetupEvent event) {
+    DeferredWorkQueue.runLater(proxy::ClientSetup); //the screen factory map is not thread safe
+  }
+
+  private void enqueueIMC(InterModEnqueueEvent event) {
+    InterModComms.sendTo("curios", CuriosAPI.IMC.REGISTER_TYPE, () -> new CurioIMCMessage("necklace"));
   }
 
-  private void jsonSetup() {
-    Gson gson = new GsonBuilder().setPrettyPrinting().create();
-    File folder = FMLPaths.CONFIGDIR.get().resolve("bhc").toFile();
-    folder.mkdirs();
-    File file = folder.toPath().resolve("drops.json").toFile();
-    try{
-      if (file.exists()){
-          config = gson.fromJson(new FileReader(file),BHCConfig.class);
-        return;
-      }
-      config = new BHCConfig();
-      config.addEntrytoMap("red", "hostile", 0.05);
-      config.addEntrytoMap("yellow", "boss", 1.0);
-      config.addEntrytoMap("green", "dragon", 1.0);
-      config.addEntrytoMap("blue", "minecraft:evocation_illager", 1.0);
-      String json = gson.toJson(config, BHCConfig.class);
-      FileWriter writer = new FileWriter(file);
-      writer.write(json);
-      writer.flush();
-      writer.close();
-    } catch (IOException e) {
-      e.printStackTrace();
-    }
+  @SubscribeEvent
+  public void serverStarting(FMLServerStartingEvent event) {
+    DropConfigLoader.awaitBootstrap();
+    if (ConfigHandler.get().watchDropsFile) DropConfigLoader.startWatching(); //the server config is only loaded once a server starts
+    BHCCommand.register(event.getCommandDispatcher());
   }
 }
@@ -0,0 +1,111 @@
+package sora.bhc.advancements;
+
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+import net.minecraft.advancements.ICriterionTrigger;
+import net.minecraft.advancements.PlayerAdvancements;
+import net.minecraft.advancements.criterion.CriterionInstance;
+import net.minecraft.advancements.criterion.ItemPredicate;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.JSONUtils;
+import net.minecraft.util.ResourceLocation;
+import sora.bhc.Reference;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@code bhc:heart_item}: a player picked up, crafted, consumed or equipped an item of this mod. Unlike
+ * {@code minecraft:inventory_changed} it is only tested when one of those things happens to one of our items, not on
+ * every inventory change.
+ * <pre>
+ * "trigger": "bhc:heart_item",
+ * "conditions": {"item": {"item": "bhc:red_heart"}, "action": "pickup"}
+ * </pre>
+ * Both conditions are optional, {@code action} is one of {@link Action}.
+ */
+public class HeartItemTrigger implements ICriterionTrigger<HeartItemTrigger.Instance> {
+
+    public static final ResourceLocation ID = new ResourceLocation(Reference.MODID, "heart_item");
+
+    public enum Action {
+        PICKUP, CRAFT, CONSUME, EQUIP
+    }
+
+    private final Map<PlayerAdvancements, Set<Listener<Instance>>> listeners = new HashMap<>();
+
+    @Override
+    public ResourceLocation getId() {
+        return ID;
+    }
+
+    @Override
+    public void addListener(PlayerAdvancements advancements, Listener<Instance> listener) {
+        listeners.computeIfAbsent(advancements, a -> new HashSet<>()).add(listener);
+    }
+
+    @Override
+    public void removeListener(PlayerAdvancements advancements, Listener<Instance> listener) {
+        Set<Listener<Instance>> set = listeners.get(advancements);
+        if (set == null) return;
+        set.remove(listener);
+        if (set.isEmpty()) listeners.remove(advancements);
+    }
+
+    @Override
+    public void removeAllListeners(PlayerAdvancements advancements) {
+        listeners.remove(advancements);
+    }
+
+    @Override
+    public Instance deserializeInstance(JsonObject json, JsonDeserializationContext context) {
+        ItemPredicate item = ItemPredicate.deserialize(json.get("item"));
+        Action action = null;
+        if (json.has("action")) {
+            String name = JSONUtils.getString(json, "action");
+            try {
+                action = Action.valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new JsonSyntaxException("Unknown action '" + name + "'");
+            }
+        }
+        return new Instance(item, action);
+    }
+
+    public void trigger(ServerPlayerEntity player, ItemStack stack, Action action) {
+        Set<Listener<Instance>> set = listeners.get(player.getAdvancements());
+        if (set == null) return;
+        List<Listener<Instance>> matched = null;
+        for (Listener<Instance> listener : set) {
+            if (listener.getCriterionInstance().test(stack, action)) {
+                if (matched == null) matched = new ArrayList<>();
+                matched.add(listener);
+            }
+        }
+        if (matched != null) {
+            for (Listener<Instance> listener : matched) listener.grantCriterion(player.getAdvancements()); //granting removes the listener
+        }
+    }
+
+    public static class Instance extends CriterionInstance {
+        private final ItemPredicate item;
+        private final Action action;
+
+        public Instance(ItemPredicate item, Action action) {
+            super(ID);
+            this.item = item;
+            this.action = action;
+        }
+
+        public boolean test(ItemStack stack, Action action) {
+            return (this.action == null || this.action == action) && item.test(stack);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package sora.bhc.advancements;
+
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import sora.bhc.Reference;
+import top.theillusivec4.curios.api.event.CurioChangeEvent;
+
+/**
+ * Holds {@link HeartItemTrigger}, registered during common setup, and fires it for the ways a player can obtain or use an item of this mod.
+ */
+@Mod.EventBusSubscriber(modid = Reference.MODID)
+public class ModTriggers {
+
+    public static final HeartItemTrigger HEART_ITEM = new HeartItemTrigger();
+
+    public static void trigger(PlayerEntity player, ItemStack stack, HeartItemTrigger.Action action) {
+        if (player instanceof ServerPlayerEntity && !stack.isEmpty() && isOurs(stack)) {
+            HEART_ITEM.trigger((ServerPlayerEntity) player, stack, action);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onPickup(PlayerEvent.ItemPickupEvent event) {
+        trigger(event.getPlayer(), event.getStack(), HeartItemTrigger.Action.PICKUP);
+    }
+
+    @SubscribeEvent
+    public static void onCraft(PlayerEvent.ItemCraftedEvent event) {
+        trigger(event.getPlayer(), event.getCrafting(), HeartItemTrigger.Action.CRAFT);
+    }
+
+    @SubscribeEvent
+    public static void onEquip(CurioChangeEvent event) {
+        if (event.getEntityLiving() instanceof PlayerEntity) {
+            trigger((PlayerEntity) event.getEntityLiving(), event.getTo(), HeartItemTrigger.Action.EQUIP);
+        }
+    }
+
+    private static boolean isOurs(ItemStack stack) {
+        return stack.getItem().getRegistryName() != null && Reference.MODID.equals(stack.getItem().getRegistryName().getNamespace());
+    }
+}
@@ -0,0 +1,158 @@
+package sora.bhc.capability;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.INBT;
+import net.minecraft.util.Direction;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.common.capabilities.Capability;
+import net.minecraftforge.common.capabilities.CapabilityInject;
+import net.minecraftforge.common.capabilities.CapabilityManager;
+import net.minecraftforge.common.capabilities.ICapabilitySerializable;
+import net.minecraftforge.common.util.Constants;
+import net.minecraftforge.common.util.LazyOptional;
+import net.minecraftforge.event.AttachCapabilitiesEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import sora.bhc.Reference;
+import sora.bhc.handler.HealthHandler;
+import sora.bhc.util.HeartType;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The hearts a player had equipped at the last full scan and the max health modifier that was applied for them.
+ * Saved with the player and copied to the new player entity on respawn, so {@link HealthHandler} can re-apply the
+ * modifier without scanning the curios again until something invalidates the ledger.
+ */
+@Mod.EventBusSubscriber(modid = Reference.MODID)
+public class HeartLedger {
+
+    @CapabilityInject(HeartLedger.class)
+    public static Capability<HeartLedger> CAPABILITY = null;
+
+    private static final ResourceLocation ID = new ResourceLocation(Reference.MODID, "heart_ledger");
+
+    private final int[] hearts = new int[HeartType.count()];
+    private int modifier;
+    private boolean valid;
+
+    public static void register() {
+        CapabilityManager.INSTANCE.register(HeartLedger.class, new Capability.IStorage<HeartLedger>() {
+            @Nullable
+            @Override
+            public INBT writeNBT(Capability<HeartLedger> capability, HeartLedger instance, Direction side) {
+                return instance.write();
+            }
+
+            @Override
+            public void readNBT(Capability<HeartLedger> capability, HeartLedger instance, Direction side, INBT nbt) {
+                if (nbt instanceof CompoundNBT) instance.read((CompoundNBT) nbt);
+            }
+        }, HeartLedger::new);
+    }
+
+    /**
+     * @return the ledger of the player, or a detached ledger that is never valid if the capability is missing
+     */
+    public static HeartLedger get(PlayerEntity player) {
+        return player.getCapability(CAPABILITY).orElseGet(HeartLedger::new);
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * @return the half hearts per {@link HeartType} index found by the last scan
+     */
+    public int[] getHearts() {
+        return hearts;
+    }
+
+    /**
+     * @return the extra half hearts of the max health modifier
+     */
+    public int getModifier() {
+        return modifier;
+    }
+
+    public void set(int[] hearts, int modifier) {
+        System.arraycopy(hearts, 0, this.hearts, 0, this.hearts.length);
+        this.modifier = modifier;
+        this.valid = true;
+    }
+
+    /**
+     * forces a full scan on the next health update
+     */
+    public void invalidate() {
+        valid = false;
+    }
+
+    private CompoundNBT write() {
+        CompoundNBT nbt = new CompoundNBT();
+        nbt.putIntArray("hearts", hearts);
+        nbt.put("types", HeartType.writeNames());
+        nbt.putInt("modifier", modifier);
+        nbt.putBoolean("valid", valid);
+        return nbt;
+    }
+
+    private void read(CompoundNBT nbt) {
+        int[] stored = nbt.getIntArray("hearts");
+        valid = nbt.getBoolean("valid") && stored.length == hearts.length && matchesTypes(nbt);
+        if (valid) System.arraycopy(stored, 0, hearts, 0, hearts.length);
+        modifier = nbt.getInt("modifier");
+    }
+
+    /**
+     * @return whether the hearts were saved with the current heart types, if not the next update rescans the curios
+     */
+    private static boolean matchesTypes(CompoundNBT nbt) {
+        if (!nbt.contains("types", Constants.NBT.TAG_LIST)) return true; //saved before the names were
+        int[] indices = HeartType.readIndices(nbt.getList("types", Constants.NBT.TAG_STRING));
+        if (indices.length != HeartType.count()) return false;
+        for (int i = 0; i < indices.length; i++) {
+            if (indices[i] != i) return false;
+        }
+        return true;
+    }
+
+    @SubscribeEvent
+    public static void onAttach(AttachCapabilitiesEvent<Entity> event) {
+        if (event.getObject() instanceof PlayerEntity) event.addCapability(ID, new Provider());
+    }
+
+    @SubscribeEvent
+    public static void onClone(PlayerEvent.Clone event) {
+        HeartLedger original = get(event.getOriginal());
+        HeartLedger ledger = get(event.getPlayer());
+        if (original.valid) ledger.set(original.hearts, original.modifier);
+    }
+
+    public static class Provider implements ICapabilitySerializable<CompoundNBT> {
+
+        private final HeartLedger ledger = new HeartLedger();
+        private final LazyOptional<HeartLedger> optional = LazyOptional.of(() -> ledger);
+
+        @Nonnull
+        @Override
+        public <T> LazyOptional<T> getCapability(@Nonnull Capability<T> cap, @Nullable Direction side) {
+            return CAPABILITY.orEmpty(cap, optional);
+        }
+
+        @Override
+        public CompoundNBT serializeNBT() {
+            return ledger.write();
+        }
+
+        @Override
+        public void deserializeNBT(CompoundNBT nbt) {
+            ledger.read(nbt);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package sora.bhc.capability;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.INBT;
+import net.minecraft.util.Direction;
+import net.minecraftforge.common.capabilities.Capability;
+import net.minecraftforge.common.capabilities.CapabilityInject;
+import net.minecraftforge.common.capabilities.CapabilityManager;
+import net.minecraftforge.common.capabilities.ICapabilityProvider;
+import net.minecraftforge.common.util.LazyOptional;
+import sora.bhc.container.HeartPendantContainer;
+import sora.bhc.core.HeartMath;
+import sora.bhc.handler.ConfigHandler;
+import sora.bhc.util.HeartType;
+import sora.bhc.util.InventoryUtil;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Decoded view of the hearts stored in a heart amulet. The stack NBT is only read on first access and again after
+ * {@link #invalidate()}, which {@link HeartPendantContainer} calls whenever it writes the stack back.
+ */
+public class HeartSummary {
+
+    @CapabilityInject(HeartSummary.class)
+    public static Capability<HeartSummary> CAPABILITY = null;
+
+    private static final HeartSummary EMPTY = new HeartSummary(ItemStack.EMPTY);
+
+    private final ItemStack stack;
+    private final int[] hearts = new int[HeartType.count()];
+    private boolean decoded;
+    private int total;
+    private int[] totalLimits;
+
+    public HeartSummary(ItemStack stack) {
+        this.stack = stack;
+    }
+
+    public static void register() {
+        CapabilityManager.INSTANCE.register(HeartSummary.class, new Capability.IStorage<HeartSummary>() {
+            @Nullable
+            @Override
+            public INBT writeNBT(Capability<HeartSummary> capability, HeartSummary instance, Direction side) {
+                return null; //backed by the stack NBT
+            }
+
+            @Override
+            public void readNBT(Capability<HeartSummary> capability, HeartSummary instance, Direction side, INBT nbt) {
+            }
+        }, () -> new HeartSummary(ItemStack.EMPTY));
+    }
+
+    /**
+     * @return the summary of the given amulet, or an empty summary for any other stack
+     */
+    public static HeartSummary get(ItemStack stack) {
+        return stack.getCapability(CAPABILITY).orElse(EMPTY);
+    }
+
+    /**
+     * @return the half hearts of the given type stored in the amulet
+     */
+    public int getHearts(HeartType type) {
+        decode();
+        return hearts[type.index];
+    }
+
+    /**
+     * adds the half hearts of every type to {@code hearts}, indexed by {@link HeartType#index}
+     */
+    public void addTo(int[] hearts) {
+        decode();
+        for (int i = 0; i < hearts.length; i++) hearts[i] += this.hearts[i];
+    }
+
+    /**
+     * @return the half hearts of all types, each type clamped to its configured maximum
+     */
+    public int getTotal() {
+        decode();
+        int[] limits = HeartType.getLimits(ConfigHandler.get().heartStackSize);
+        if (limits != totalLimits) {
+            total = HeartMath.total(hearts, limits);
+            totalLimits = limits;
+        }
+        return total;
+    }
+
+    public void invalidate() {
+        decoded = false;
+        totalLimits = null;
+    }
+
+    private void decode() {
+        if (decoded) return;
+        decoded = true;
+        int[] counts = InventoryUtil.readCounts(stack, hearts.length);
+        for (int i = 0; i < hearts.length; i++) hearts[i] = counts[i] * 2;
+    }
+
+    public static class Provider implements ICapabilityProvider {
+
+        private final LazyOptional<HeartSummary> summary;
+
+        public Provider(ItemStack stack) {
+            this.summary = LazyOptional.of(() -> new HeartSummary(stack));
+        }
+
+        @Nonnull
+        @Override
+        public <T> LazyOptional<T> getCapability(@Nonnull Capability<T> cap, @Nullable Direction side) {
+            return CAPABILITY.orEmpty(cap, summary);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package sora.bhc.client;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.client.entity.player.ClientPlayerEntity;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.client.event.ClientPlayerNetworkEvent;
+import net.minecraftforge.event.entity.EntityLeaveWorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import sora.bhc.Reference;
+import sora.bhc.network.HeartSyncMessage;
+import sora.bhc.util.HeartType;
+
+/**
+ * Per-type heart totals of the local player and every player they can see, as sent by the server.
+ */
+@Mod.EventBusSubscriber(modid = Reference.MODID, value = Dist.CLIENT)
+public class ClientHeartData {
+
+    private static final int[] NONE = new int[HeartType.count()];
+    private static final Int2ObjectMap<int[]> hearts = new Int2ObjectOpenHashMap<>();
+
+    /**
+     * @return the half hearts per {@link HeartType} index, do not modify
+     */
+    public static int[] getHearts(Entity entity) {
+        int[] value = hearts.get(entity.getEntityId());
+        return value != null ? value : NONE;
+    }
+
+    public static void apply(HeartSyncMessage msg) {
+        msg.forEach((entityId, mask, values, offset) -> {
+            int[] current = hearts.computeIfAbsent(entityId, id -> new int[HeartType.count()]);
+            for (int i = 0; i < current.length; i++) {
+                if ((mask & (1 << i)) != 0) current[i] = values.getInt(offset++);
+            }
+        });
+    }
+
+    /**
+     * forgets players that are no longer tracked, the server sends a full snapshot when they are tracked again; the
+     * local player keeps its entity id across respawns and dimension changes, so it is kept until logout
+     */
+    @SubscribeEvent
+    public static void onLeaveWorld(EntityLeaveWorldEvent event) {
+        Entity entity = event.getEntity();
+        if (entity.world.isRemote && entity instanceof PlayerEntity && !(entity instanceof ClientPlayerEntity)) hearts.remove(entity.getEntityId());
+    }
+
+    @SubscribeEvent
+    public static void onLogout(ClientPlayerNetworkEvent.LoggedOutEvent event) {
+        hearts.clear();
+    }
+}
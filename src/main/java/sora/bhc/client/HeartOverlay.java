@@ -0,0 +1,207 @@
+package sora.bhc.client;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.entity.player.ClientPlayerEntity;
+import net.minecraft.client.gui.AbstractGui;
+import net.minecraft.potion.Effects;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.math.MathHelper;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.client.event.RenderGameOverlayEvent;
+import net.minecraftforge.client.gui.ForgeIngameGui;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15;
+import sora.bhc.Reference;
+import sora.bhc.handler.ConfigHandler;
+import sora.bhc.metrics.Histogram;
+import sora.bhc.util.HeartType;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Replaces the vanilla rows of hearts with a single row once the player has more than 10 hearts: every 20 health
+ * is a layer drawn on top of the previous one, coloured by the heart type that health comes from. The quads live in
+ * one vertex buffer grouped by texture, which is only rebuilt when health, max health or the heart totals change.
+ * Players with absorption, poison or wither get the vanilla hearts. With the debug screen open, the time spent
+ * drawing this row and the vanilla rows is shown for comparison.
+ */
+@Mod.EventBusSubscriber(modid = Reference.MODID, value = Dist.CLIENT)
+public class HeartOverlay {
+
+    private static final int SLOTS = 10;
+    private static final int LAYER = SLOTS * 2;
+    private static final int FLOATS_PER_QUAD = 4 * 4;
+
+    private static final ResourceLocation[] TEXTURES = new ResourceLocation[HeartType.count()];
+    /**
+     * texture ranges in the buffer: the empty containers first, then one per heart type for the full hearts of the
+     * layer below a half heart, then one per heart type for the top layer
+     */
+    private static final int[] first = new int[TEXTURES.length * 2 + 1];
+    private static final int[] count = new int[TEXTURES.length * 2 + 1];
+
+    private static final FloatBuffer vertices = BufferUtils.createFloatBuffer(SLOTS * 3 * FLOATS_PER_QUAD);
+    private static int vbo;
+    private static int lastHealth = -1;
+    private static int lastMaxHealth = -1;
+    private static final int[] lastHearts = new int[TEXTURES.length];
+
+    private static final Histogram OVERLAY_TIME = new Histogram();
+    private static final Histogram VANILLA_TIME = new Histogram();
+    private static long vanillaStart;
+
+    static {
+        for (HeartType type : HeartType.values()) {
+            TEXTURES[type.index] = type.texture;
+        }
+    }
+
+    @SubscribeEvent
+    public static void onRenderHealth(RenderGameOverlayEvent.Pre event) {
+        if (event.getType() != RenderGameOverlayEvent.ElementType.HEALTH) return;
+        Minecraft mc = Minecraft.getInstance();
+        ClientPlayerEntity player = mc.player;
+        if (player == null || player.getMaxHealth() <= LAYER) return;
+        if (!ConfigHandler.isCompactHealthBar() || player.getAbsorptionAmount() > 0.0F
+                || player.isPotionActive(Effects.POISON) || player.isPotionActive(Effects.WITHER)) {
+            vanillaStart = System.nanoTime();
+            return;
+        }
+        long start = System.nanoTime();
+        vanillaStart = 0;
+        event.setCanceled(true);
+        int health = MathHelper.ceil(player.getHealth());
+        int maxHealth = MathHelper.ceil(player.getMaxHealth());
+        int[] hearts = ClientHeartData.getHearts(player);
+        if (vbo == 0) vbo = GL15.glGenBuffers();
+        if (health != lastHealth || maxHealth != lastMaxHealth || !Arrays.equals(hearts, lastHearts)) {
+            rebuild(health, maxHealth, hearts);
+            lastHealth = health;
+            lastMaxHealth = maxHealth;
+            System.arraycopy(hearts, 0, lastHearts, 0, lastHearts.length);
+        }
+        int left = event.getWindow().getScaledWidth() / 2 - 91;
+        int top = event.getWindow().getScaledHeight() - ForgeIngameGui.left_height;
+        ForgeIngameGui.left_height += 10;
+        draw(mc, left, top);
+        OVERLAY_TIME.record(System.nanoTime() - start);
+    }
+
+    @SubscribeEvent
+    public static void onRenderHealthPost(RenderGameOverlayEvent.Post event) {
+        if (event.getType() != RenderGameOverlayEvent.ElementType.HEALTH || vanillaStart == 0) return;
+        VANILLA_TIME.record(System.nanoTime() - vanillaStart);
+        vanillaStart = 0;
+    }
+
+    /**
+     * adds the draw time of the single row and of the vanilla rows above 10 hearts to the debug screen, toggling
+     * compactHealthBar switches between the two at the same health
+     */
+    @SubscribeEvent
+    public static void onDebugText(RenderGameOverlayEvent.Text event) {
+        if (!Minecraft.getInstance().gameSettings.showDebugInfo || OVERLAY_TIME.getCount() + VANILLA_TIME.getCount() == 0) return;
+        event.getLeft().add(String.format("BHC hearts: compact %.1fus p99 %.1fus, vanilla %.1fus p99 %.1fus",
+                OVERLAY_TIME.getMeanMicros(), OVERLAY_TIME.getPercentileMicros(0.99D),
+                VANILLA_TIME.getMeanMicros(), VANILLA_TIME.getPercentileMicros(0.99D)));
+    }
+
+    /**
+     * @return the heart type that health point {@code unit} comes from: the first 20 are vanilla, the rest is split
+     * by the synced per-type totals in {@link HeartType} index order, vanilla health is drawn as the first type
+     */
+    private static int typeOf(int unit, int[] hearts) {
+        if (unit < LAYER) return 0;
+        int remaining = unit - LAYER;
+        for (int i = 0; i < hearts.length; i++) {
+            if (remaining < hearts[i]) return i;
+            remaining -= hearts[i];
+        }
+        return 0;
+    }
+
+    private static void rebuild(int health, int maxHealth, int[] hearts) {
+        vertices.clear();
+        int slots = Math.min(SLOTS, (maxHealth + 1) / 2);
+        for (int slot = 0; slot < slots; slot++) quad(slot * 8, 9, 16 / 256.0F, 0.0F, 25 / 256.0F, 9 / 256.0F);
+        first[0] = 0;
+        count[0] = slots * 4;
+        int quads = slots;
+        // half hearts of the top layer show the full heart of the layer below through their empty half, so those
+        // are drawn first in a pass of their own
+        for (int type = 0; type < TEXTURES.length; type++) {
+            first[type + 1] = quads * 4;
+            for (int slot = 0; slot < slots; slot++) {
+                int unit = topUnit(slot, health);
+                if (unit < LAYER || unit % 2 == 1 || typeOf(unit - LAYER + 1, hearts) != type) continue;
+                quad(slot * 8, 9.0F, 0.0F, 0.0F, 1.0F, 1.0F);
+                quads++;
+            }
+            count[type + 1] = quads * 4 - first[type + 1];
+        }
+        for (int type = 0; type < TEXTURES.length; type++) {
+            int range = TEXTURES.length + type + 1;
+            first[range] = quads * 4;
+            for (int slot = 0; slot < slots; slot++) {
+                int unit = topUnit(slot, health);
+                if (unit < 0 || typeOf(unit, hearts) != type) continue;
+                boolean full = unit % 2 == 1;
+                quad(slot * 8, full ? 9.0F : 4.5F, 0.0F, 0.0F, full ? 1.0F : 0.5F, 1.0F);
+                quads++;
+            }
+            count[range] = quads * 4 - first[range];
+        }
+        vertices.flip();
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
+        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, vertices, GL15.GL_DYNAMIC_DRAW);
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+    }
+
+    /**
+     * @return the last filled health point shown in the slot, from the highest layer that reaches it, or -1
+     */
+    private static int topUnit(int slot, int health) {
+        int layers = (health + LAYER - 1) / LAYER;
+        for (int layer = layers - 1; layer >= 0; layer--) {
+            int start = layer * LAYER + slot * 2;
+            if (start < health) return Math.min(start + 1, health - 1);
+        }
+        return -1;
+    }
+
+    private static void quad(float x, float width, float u0, float v0, float u1, float v1) {
+        vertices.put(x).put(9.0F).put(u0).put(v1);
+        vertices.put(x + width).put(9.0F).put(u1).put(v1);
+        vertices.put(x + width).put(0.0F).put(u1).put(v0);
+        vertices.put(x).put(0.0F).put(u0).put(v0);
+    }
+
+    private static void draw(Minecraft mc, int left, int top) {
+        RenderSystem.pushMatrix();
+        RenderSystem.translatef(left, top, 0.0F);
+        RenderSystem.enableBlend();
+        RenderSystem.defaultBlendFunc();
+        RenderSystem.color4f(1.0F, 1.0F, 1.0F, 1.0F);
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
+        GL11.glEnableClientState(GL11.GL_VERTEX_ARRAY);
+        GL11.glEnableClientState(GL11.GL_TEXTURE_COORD_ARRAY);
+        GL11.glVertexPointer(2, GL11.GL_FLOAT, 16, 0L);
+        GL11.glTexCoordPointer(2, GL11.GL_FLOAT, 16, 8L);
+        for (int range = 0; range < first.length; range++) {
+            if (count[range] == 0) continue;
+            mc.getTextureManager().bindTexture(range == 0 ? AbstractGui.GUI_ICONS_LOCATION : TEXTURES[(range - 1) % TEXTURES.length]);
+            GL11.glDrawArrays(GL11.GL_QUADS, first[range], count[range]);
+        }
+        GL11.glDisableClientState(GL11.GL_TEXTURE_COORD_ARRAY);
+        GL11.glDisableClientState(GL11.GL_VERTEX_ARRAY);
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+        RenderSystem.disableBlend();
+        RenderSystem.popMatrix();
+        mc.getTextureManager().bindTexture(AbstractGui.GUI_ICONS_LOCATION);
+    }
+}
@@ -0,0 +1,155 @@
+package sora.bhc.command;
+
+import com.mojang.authlib.GameProfile;
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.exceptions.DynamicCommandExceptionType;
+import net.minecraft.command.CommandSource;
+import net.minecraft.command.Commands;
+import net.minecraft.command.ISuggestionProvider;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.text.StringTextComponent;
+import net.minecraft.util.text.TextFormatting;
+import sora.bhc.Reference;
+import sora.bhc.handler.DropConfigLoader;
+import sora.bhc.handler.HeartLeaderboard;
+import sora.bhc.handler.LoadSimulator;
+import sora.bhc.metrics.BHCMetrics;
+import sora.bhc.util.HeartType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class BHCCommand {
+
+    private static final DynamicCommandExceptionType UNKNOWN_TYPE = new DynamicCommandExceptionType(name -> new StringTextComponent("Unknown heart type: " + name));
+
+    public static void register(CommandDispatcher<CommandSource> dispatcher) {
+        LiteralArgumentBuilder<CommandSource> root = Commands.literal("bhc")
+                .requires(source -> source.hasPermissionLevel(2))
+                .then(Commands.literal("reload").executes(context -> reload(context.getSource())))
+                .then(Commands.literal("stats")
+                        .executes(context -> stats(context.getSource()))
+                        .then(Commands.literal("reset").executes(context -> resetStats(context.getSource()))))
+                .then(Commands.literal("top")
+                        .executes(context -> top(context.getSource(), HeartLeaderboard.TOTAL, 10))
+                        .then(Commands.literal("export").executes(context -> exportTop(context.getSource())))
+                        .then(Commands.argument("type", StringArgumentType.word())
+                                .suggests((context, builder) -> ISuggestionProvider.suggest(getColumnNames(), builder))
+                                .executes(context -> top(context.getSource(), getColumn(context), 10))
+                                .then(Commands.argument("count", IntegerArgumentType.integer(1, 100))
+                                        .executes(context -> top(context.getSource(), getColumn(context), IntegerArgumentType.getInteger(context, "count"))))))
+                .then(Commands.literal("bench")
+                        .executes(context -> bench(context.getSource(), 2000, 200, 200, 60))
+                        .then(Commands.argument("deathsPerMinute", IntegerArgumentType.integer(0))
+                                .then(Commands.argument("players", IntegerArgumentType.integer(0, 1000))
+                                        .then(Commands.argument("healthUpdatesPerMinute", IntegerArgumentType.integer(0))
+                                                .then(Commands.argument("seconds", IntegerArgumentType.integer(1, 3600))
+                                                        .executes(context -> bench(context.getSource(),
+                                                                IntegerArgumentType.getInteger(context, "deathsPerMinute"),
+                                                                IntegerArgumentType.getInteger(context, "players"),
+                                                                IntegerArgumentType.getInteger(context, "healthUpdatesPerMinute"),
+                                                                IntegerArgumentType.getInteger(context, "seconds"))))))));
+        dispatcher.register(root);
+    }
+
+    private static int reload(CommandSource source) {
+        source.sendFeedback(new StringTextComponent("Reloading drops.json..."), true);
+        DropConfigLoader.reload().whenCompleteAsync((snapshot, error) -> {
+            if (error != null) {
+                source.sendErrorMessage(new StringTextComponent("Failed to reload drops.json, keeping the previous drops: " + error.getCause().getMessage()));
+            } else {
+                source.sendFeedback(new StringTextComponent("Reloaded drops.json").applyTextStyle(TextFormatting.GREEN), true);
+            }
+        }, source.getServer());
+        return 1;
+    }
+
+    private static int stats(CommandSource source) {
+        source.sendFeedback(new StringTextComponent(String.format("Drops: %d events, %d matched, %d items rolled, %d suppressed, mean %.1fus, p99 %.1fus",
+                BHCMetrics.DROP_EVENTS.sum(), BHCMetrics.DROP_MATCHES.sum(), BHCMetrics.DROPS_ROLLED.sum(), BHCMetrics.DROPS_SUPPRESSED.sum(),
+                BHCMetrics.DROP_TIME.getMeanMicros(), BHCMetrics.DROP_TIME.getPercentileMicros(0.99D))), false);
+        source.sendFeedback(new StringTextComponent(String.format("Health: %d updates, %d full scans, %d modifier applies, mean %.1fus, p99 %.1fus",
+                BHCMetrics.HEALTH_UPDATES.sum(), BHCMetrics.HEALTH_SCANS.sum(), BHCMetrics.MODIFIER_APPLIES.sum(),
+                BHCMetrics.HEALTH_TIME.getMeanMicros(), BHCMetrics.HEALTH_TIME.getPercentileMicros(0.99D))), false);
+        source.sendFeedback(new StringTextComponent(String.format("Pendants: %d writes, %d bytes",
+                BHCMetrics.INVENTORY_WRITES.sum(), BHCMetrics.INVENTORY_BYTES.sum())), false);
+        source.sendFeedback(new StringTextComponent("Hit rates (hits/deaths since the last reload or reset):").applyTextStyle(TextFormatting.GRAY), false);
+        for (String line : BHCMetrics.describeEntityHitRates()) {
+            source.sendFeedback(new StringTextComponent("  " + line), false);
+        }
+        return 1;
+    }
+
+    private static int resetStats(CommandSource source) {
+        BHCMetrics.reset();
+        source.sendFeedback(new StringTextComponent("Reset bhc stats"), true);
+        return 1;
+    }
+
+    private static int top(CommandSource source, int column, int count) {
+        MinecraftServer server = source.getServer();
+        List<HeartLeaderboard.Entry> top = HeartLeaderboard.get(server).top(column, count);
+        String name = column == HeartLeaderboard.TOTAL ? "total" : HeartType.get(column).name;
+        source.sendFeedback(new StringTextComponent("Top " + top.size() + " players by " + name + " hearts:").applyTextStyle(TextFormatting.GRAY), false);
+        for (int i = 0; i < top.size(); i++) {
+            HeartLeaderboard.Entry entry = top.get(i);
+            GameProfile profile = server.getPlayerProfileCache().getProfileByUUID(entry.id);
+            source.sendFeedback(new StringTextComponent(String.format("%d. %s: %.1f", i + 1, profile != null ? profile.getName() : entry.id.toString(), entry.values[column] / 2.0F)), false);
+        }
+        return top.size();
+    }
+
+    private static int exportTop(CommandSource source) {
+        MinecraftServer server = source.getServer();
+        List<HeartLeaderboard.Entry> entries = HeartLeaderboard.get(server).snapshot();
+        List<String> names = HeartLeaderboard.getNames(entries, server);
+        Path file = server.getDataDirectory().toPath().resolve(Reference.MODID).resolve("leaderboard.json");
+        CompletableFuture.runAsync(() -> {
+            try {
+                HeartLeaderboard.export(entries, names, file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenCompleteAsync((result, error) -> {
+            if (error != null) {
+                source.sendErrorMessage(new StringTextComponent("Failed to export the leaderboard: " + error.getCause().getMessage()));
+            } else {
+                source.sendFeedback(new StringTextComponent("Exported " + entries.size() + " players to " + file), true);
+            }
+        }, server);
+        return 1;
+    }
+
+    private static List<String> getColumnNames() {
+        List<String> names = new ArrayList<>();
+        for (HeartType type : HeartType.values()) names.add(type.name);
+        names.add("total");
+        return names;
+    }
+
+    private static int getColumn(CommandContext<CommandSource> context) throws CommandSyntaxException {
+        String name = StringArgumentType.getString(context, "type");
+        int column = getColumnNames().indexOf(name.toLowerCase());
+        if (column < 0) throw UNKNOWN_TYPE.create(name);
+        return column;
+    }
+
+    private static int bench(CommandSource source, int deathsPerMinute, int players, int healthUpdatesPerMinute, int seconds) {
+        if (LoadSimulator.isRunning()) {
+            source.sendErrorMessage(new StringTextComponent("A bench is already running"));
+            return 0;
+        }
+        LoadSimulator.start(source, deathsPerMinute, players, healthUpdatesPerMinute, seconds);
+        source.sendFeedback(new StringTextComponent(String.format("Simulating %d deaths/min and %d health updates/min across %d fake players for %ds...", deathsPerMinute, healthUpdatesPerMinute, players, seconds)), true);
+        return 1;
+    }
+}
@@ -1,125 +1,158 @@
-//package sora.bhc.container;
-//
-//import com.google.common.base.Preconditions;
-//import net.minecraft.entity.player.PlayerEntity;
-//import net.minecraft.entity.player.PlayerInventory;
-//import net.minecraft.inventory.container.Container;
-//import net.minecraft.inventory.container.Slot;
-//import net.minecraft.item.ItemStack;
-//import net.minecraft.nbt.CompoundNBT;
-//import net.minecraft.util.Hand;
-//import net.minecraftforge.items.IItemHandler;
-//import net.minecraftforge.items.ItemStackHandler;
-//import net.minecraftforge.items.SlotItemHandler;
-//import sora.bhc.handler.ConfigHandler;
-//import sora.bhc.init.ModItems;
-//import sora.bhc.items.BaseHeartCanister;
-//import sora.bhc.util.InventoryUtil;
-//
-//import javax.annotation.Nonnull;
-//
-//
-//public class HeartPendantContainer extends Container {
-//
-//    public static final String HEART_AMOUNT = "heart_amount";
-//
-//    private final ItemStackHandler itemHandler;
-//    private final ItemStack pendant;
-//
-//    public HeartPendantContainer(int windowId, ItemStack pendant, @Nonnull PlayerInventory playerInventory, @Nonnull Enum<Hand> hand) {
-//      super(ModItems.HEART_PENANT_CONTAINER,windowId);
-//      Preconditions.checkNotNull(pendant, "pendant cannot be null");
-//        Preconditions.checkNotNull(playerInventory, "playerInventory cannot be null");
-//        Preconditions.checkNotNull(hand, "hand cannot be null");
-//        this.itemHandler = InventoryUtil.createVirtualInventory(4, pendant);
-//        this.pendant = pendant;
-//
-//
-//
-//        //heart container slots
-//        this.addSlot(new SlotPendant(this.itemHandler, 0, 80, 9)); //red
-//        this.addSlot(new SlotPendant(this.itemHandler, 1, 53, 33)); //orange
-//        this.addSlot(new SlotPendant(this.itemHandler, 2, 107, 33)); //green
-//        this.addSlot(new SlotPendant(this.itemHandler, 3, 80, 57)); //blue
-//
-//        //player inventory
-//        for (int l = 0; l < 3; ++l)
-//        {
-//            for (int j1 = 0; j1 < 9; ++j1)
-//            {
-//                this.addSlot(new Slot(playerInventory, j1 + l * 9 + 9, 8 + j1 * 18, 84 + l * 18));
-//            }
-//        }
-//
-//        //hotbar
-//        for (int i1 = 0; i1 < 9; ++i1)
-//        {
-//            this.addSlot(new Slot(playerInventory, i1, 8 + i1 * 18, 142));
-//        }
-//    }
-//
-//    public HeartPendantContainer(int windowId){
-//      super(ModItems.HEART_PENANT_CONTAINER,windowId);
-//    }
-//
-//
-//
-//  @Override
-//    public void onContainerClosed(PlayerEntity playerIn) {
-//        super.onContainerClosed(playerIn);
-//        InventoryUtil.serializeInventory(this.itemHandler, this.pendant);
-//        CompoundNBT nbt = this.pendant.getTag();
-//        int[] hearts = new int [this.itemHandler.getSlots()];
-//        for(int i = 0; i < hearts.length; i++) { //save hearts to NBT for easy access
-//            ItemStack stack = this.itemHandler.getStackInSlot(i);
-//            if(!stack.isEmpty()) hearts[i] = stack.getCount() * 2;
-//        }
-//        nbt.putIntArray(HEART_AMOUNT, hearts);
-//    }
-//
-//  @Override
-//  public boolean canInteractWith(PlayerEntity playerIn) {
-//    return true;
-//  }
-//
-//    @Override
-//    public ItemStack transferStackInSlot(PlayerEntity playerIn, int index) {
-//        ItemStack stack = ItemStack.EMPTY;
-//        Slot slot = inventorySlots.get(index);
-//        if(slot != null && slot.getHasStack()) {
-//            ItemStack slotStack = slot.getStack();
-//            stack = slotStack.copy();
-//            if(index < this.itemHandler.getSlots()) { //player --> pendant or pendant --> player inventory
-//                if(!this.mergeItemStack(slotStack, this.itemHandler.getSlots(), this.inventorySlots.size(), true)) {
-//                    return ItemStack.EMPTY;
-//                }
-//            }
-//            else if(!this.mergeItemStack(slotStack, 0, this.itemHandler.getSlots(), false)) {
-//                return ItemStack.EMPTY;
-//            }
-//
-//            if(slotStack.isEmpty()) slot.putStack(ItemStack.EMPTY);
-//            else slot.onSlotChanged();
-//        }
-//        return stack;
-//    }
-//
-//    private static class SlotPendant extends SlotItemHandler {
-//
-//        public SlotPendant(IItemHandler itemHandler, int index, int xPosition, int yPosition) {
-//            super(itemHandler, index, xPosition, yPosition);
-//        }
-//
-//        @Override
-//        public boolean isItemValid(@Nonnull ItemStack stack) {
-//            //only store heart canisters matching the color.
-//            return super.isItemValid(stack) && stack.getItem() instanceof BaseHeartCanister && ((BaseHeartCanister) stack.getItem()).type.ordinal() == this.getSlotIndex();
-//        }
-//
-//        @Override
-//        public int getSlotStackLimit() {
-//            return ConfigHandler.general.heartStackSize.get();
-//        }
-//
-//    }
-//}
+package sora.bhc.container;
+
+import com.google.common.base.Preconditions;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.inventory.container.ClickType;
+import net.minecraft.inventory.container.Container;
+import net.minecraft.inventory.container.Slot;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.Hand;
+import net.minecraftforge.items.IItemHandler;
+import net.minecraftforge.items.SlotItemHandler;
+import sora.bhc.capability.HeartSummary;
+import sora.bhc.handler.ConfigHandler;
+import sora.bhc.init.ModItems;
+import sora.bhc.items.BaseHeartCanister;
+import sora.bhc.util.HeartType;
+import sora.bhc.util.InventoryUtil;
+
+import javax.annotation.Nonnull;
+
+
+public class HeartPendantContainer extends Container {
+
+    /** one slot per heart type, laid out in rows of up to nine like a chest */
+    public static final int SLOTS = HeartType.count();
+    public static final int ROWS = (SLOTS + 8) / 9;
+
+    private final InventoryUtil.PendantInventory itemHandler;
+    private final ItemStack pendant;
+    private final Hand hand;
+    /** hotbar index of the opened pendant, -1 if it is in the off hand */
+    private final int heldSlot;
+
+    public HeartPendantContainer(int windowId, ItemStack pendant, @Nonnull PlayerInventory playerInventory, @Nonnull Hand hand) {
+      super(ModItems.HEART_PENDANT_CONTAINER,windowId);
+      Preconditions.checkNotNull(pendant, "pendant cannot be null");
+        Preconditions.checkNotNull(playerInventory, "playerInventory cannot be null");
+        Preconditions.checkNotNull(hand, "hand cannot be null");
+        this.itemHandler = InventoryUtil.createVirtualInventory(SLOTS, pendant);
+        this.pendant = pendant;
+        this.hand = hand;
+        this.heldSlot = hand == Hand.MAIN_HAND ? playerInventory.currentItem : -1;
+
+
+
+        //heart container slots
+        for (int i = 0; i < SLOTS; i++) {
+            this.addSlot(new SlotPendant(this.itemHandler, i, getSlotX(i), 18 + i / 9 * 18)); //one slot per heart type index
+        }
+
+        int inventoryY = 31 + ROWS * 18;
+
+        //player inventory
+        for (int l = 0; l < 3; ++l)
+        {
+            for (int j1 = 0; j1 < 9; ++j1)
+            {
+                this.addSlot(new Slot(playerInventory, j1 + l * 9 + 9, 8 + j1 * 18, inventoryY + l * 18));
+            }
+        }
+
+        //hotbar
+        for (int i1 = 0; i1 < 9; ++i1)
+        {
+            //the pendant's contents are only written back when the screen closes, so the pendant itself must stay put
+            this.addSlot(i1 == heldSlot ? new SlotLocked(playerInventory, i1, 8 + i1 * 18, inventoryY + 58) : new Slot(playerInventory, i1, 8 + i1 * 18, inventoryY + 58));
+        }
+    }
+
+
+
+    /**
+     * @return the x position of a heart canister slot, rows are filled from the left and the last one is centered
+     */
+    public static int getSlotX(int slot) {
+        int columns = Math.min(9, SLOTS - slot / 9 * 9);
+        return 8 + (9 - columns) * 9 + slot % 9 * 18;
+    }
+
+  @Override
+    public void onContainerClosed(PlayerEntity playerIn) {
+        super.onContainerClosed(playerIn);
+        InventoryUtil.serializeInventory(this.itemHandler, this.pendant);
+        HeartSummary.get(this.pendant).invalidate();
+    }
+
+  @Override
+  public boolean canInteractWith(PlayerEntity playerIn) {
+    return playerIn.getHeldItem(this.hand) == this.pendant;
+  }
+
+    @Override
+    public ItemStack slotClick(int slotId, int dragType, ClickType clickTypeIn, PlayerEntity player) {
+        //number keys swap the hovered slot with a hotbar slot, which must not move the pendant either
+        if (clickTypeIn == ClickType.SWAP && heldSlot >= 0 && dragType == heldSlot) return ItemStack.EMPTY;
+        if (slotId >= 0 && slotId < this.inventorySlots.size() && this.inventorySlots.get(slotId) instanceof SlotLocked) return ItemStack.EMPTY;
+        return super.slotClick(slotId, dragType, clickTypeIn, player);
+    }
+
+    @Override
+    public ItemStack transferStackInSlot(PlayerEntity playerIn, int index) {
+        ItemStack stack = ItemStack.EMPTY;
+        Slot slot = inventorySlots.get(index);
+        if(slot != null && slot.getHasStack()) {
+            ItemStack slotStack = slot.getStack();
+            stack = slotStack.copy();
+            if(index < this.itemHandler.getSlots()) { //player --> pendant or pendant --> player inventory
+                if(!this.mergeItemStack(slotStack, this.itemHandler.getSlots(), this.inventorySlots.size(), true)) {
+                    return ItemStack.EMPTY;
+                }
+            }
+            else if(!this.mergeItemStack(slotStack, 0, this.itemHandler.getSlots(), false)) {
+                return ItemStack.EMPTY;
+            }
+
+            if(slotStack.isEmpty()) slot.putStack(ItemStack.EMPTY);
+            else slot.onSlotChanged();
+        }
+        return stack;
+    }
+
+    private static class SlotLocked extends Slot {
+
+        public SlotLocked(PlayerInventory inventory, int index, int xPosition, int yPosition) {
+            super(inventory, index, xPosition, yPosition);
+        }
+
+        @Override
+        public boolean canTakeStack(PlayerEntity playerIn) {
+            return false;
+        }
+
+        @Override
+        public boolean isItemValid(ItemStack stack) {
+            return false;
+        }
+    }
+
+    private static class SlotPendant extends SlotItemHandler {
+
+        public SlotPendant(IItemHandler itemHandler, int index, int xPosition, int yPosition) {
+            super(itemHandler, index, xPosition, yPosition);
+        }
+
+        @Override
+        public boolean isItemValid(@Nonnull ItemStack stack) {
+            //only store heart canisters matching the color.
+            return super.isItemValid(stack) && stack.getItem() instanceof BaseHeartCanister && ((BaseHeartCanister) stack.getItem()).type.index == this.getSlotIndex();
+        }
+
+        @Override
+        public int getSlotStackLimit() {
+            return HeartType.get(this.getSlotIndex()).getLimit(ConfigHandler.get().heartStackSize);
+        }
+
+    }
+}
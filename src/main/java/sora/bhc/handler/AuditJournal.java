@@ -0,0 +1,92 @@
+package sora.bhc.handler;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.event.server.FMLServerStartingEvent;
+import net.minecraftforge.fml.event.server.FMLServerStoppedEvent;
+import sora.bhc.BaubleyHeartCanisters;
+import sora.bhc.Reference;
+import sora.bhc.core.EventJournal;
+import sora.bhc.items.ItemHeartAmulet;
+import sora.bhc.util.HeartType;
+import top.theillusivec4.curios.api.event.CurioChangeEvent;
+
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+
+/**
+ * Feeds the events relevant for dupe audits into the {@link EventJournal} of the running server, written to
+ * {@code bhc/journal} in the run directory. Dump it with {@code sora.bhc.core.JournalReader}. Heart -1 is a wither
+ * bone or a max health change, -2 a heart amulet, any other value the position of the type in hearts.json, which
+ * {@link HeartTypeOrder} keeps stable for the world.
+ */
+@Mod.EventBusSubscriber(modid = Reference.MODID)
+public class AuditJournal {
+
+    private static final int AMULET = -2;
+
+    private static EventJournal journal;
+
+    public static void drop(LivingEntity entity, int heart, @Nullable Entity killer) {
+        if (journal == null) return;
+        append(EventJournal.DROP, heart, 1, killer instanceof PlayerEntity ? killer : null, entity);
+    }
+
+    public static void consume(PlayerEntity player, HeartType type, int amount) {
+        if (journal == null) return;
+        append(EventJournal.CONSUME, type.index, amount, player, player);
+    }
+
+    /**
+     * @param extraHearts the new amount of the max health modifier in half hearts
+     */
+    public static void maxHealth(PlayerEntity player, int extraHearts) {
+        if (journal == null) return;
+        append(EventJournal.MAX_HEALTH, -1, extraHearts, player, player);
+    }
+
+    @SubscribeEvent
+    public static void onCurioChange(CurioChangeEvent event) {
+        if (journal == null || !(event.getEntityLiving() instanceof PlayerEntity) || event.getEntityLiving().world.isRemote) return;
+        PlayerEntity player = (PlayerEntity) event.getEntityLiving();
+        equip(EventJournal.UNEQUIP, event.getFrom(), player);
+        equip(EventJournal.EQUIP, event.getTo(), player);
+    }
+
+    private static void equip(byte kind, ItemStack stack, PlayerEntity player) {
+        if (stack.getItem() instanceof ItemHeartAmulet) {
+            append(kind, AMULET, stack.getCount(), player, player);
+        }
+    }
+
+    private static void append(byte kind, int heart, int amount, @Nullable Entity player, Entity at) {
+        journal.append(kind, heart, amount,
+                player != null ? player.getUniqueID().getMostSignificantBits() : 0L,
+                player != null ? player.getUniqueID().getLeastSignificantBits() : 0L,
+                (int) Math.floor(at.getPosX()), (int) Math.floor(at.getPosY()), (int) Math.floor(at.getPosZ()),
+                at.dimension.getId());
+    }
+
+    @SubscribeEvent
+    public static void onServerStarting(FMLServerStartingEvent event) {
+        ConfigHandler.Snapshot config = ConfigHandler.get();
+        if (!config.eventJournal) return;
+        Path dir = event.getServer().getDataDirectory().toPath().resolve(Reference.MODID).resolve("journal");
+        journal = new EventJournal(dir, 1 << 14, config.journalFileSizeMb << 20, config.journalFiles,
+                e -> BaubleyHeartCanisters.LOGGER.error("The event journal in {} failed, no more events will be recorded until the server restarts", dir, e),
+                e -> BaubleyHeartCanisters.LOGGER.warn("Unable to delete an old event journal file, trying again when the next file is started", e));
+        journal.start();
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(FMLServerStoppedEvent event) {
+        if (journal == null) return;
+        journal.close();
+        if (journal.getDropped() > 0) BaubleyHeartCanisters.LOGGER.warn("The event journal dropped {} records because the writer fell behind", journal.getDropped());
+        journal = null;
+    }
+}
@@ -1,7 +1,22 @@
 package sora.bhc.handler;
 
 import net.minecraftforge.common.ForgeConfigSpec;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.config.ModConfig;
+import net.minecraftforge.fml.loading.FMLConfig;
+import net.minecraftforge.fml.loading.FMLPaths;
+import sora.bhc.BaubleyHeartCanisters;
+import sora.bhc.Reference;
+import sora.bhc.network.ConfigReload;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static net.minecraftforge.fml.common.Mod.EventBusSubscriber.Bus.MOD;
+
+@Mod.EventBusSubscriber(bus = MOD, modid = Reference.MODID)
 public class ConfigHandler {
 
   public static class General{
@@ -9,6 +24,19 @@ public class ConfigHandler {
     public final ForgeConfigSpec.ConfigValue<Double> boneDropRate;
     public final ForgeConfigSpec.ConfigValue<Boolean> allowStartingHeathTweaks;
     public final ForgeConfigSpec.ConfigValue<Integer> startingHealth;
+    public final ForgeConfigSpec.ConfigValue<Boolean> coalesceDrops;
+    public final ForgeConfigSpec.ConfigValue<Integer> maxDropSpawnsPerTick;
+    public final ForgeConfigSpec.ConfigValue<Boolean> watchDropsFile;
+    public final ForgeConfigSpec.ConfigValue<Integer> healthCheckInterval;
+    public final ForgeConfigSpec.ConfigValue<Double> tickBudgetMs;
+    public final ForgeConfigSpec.ConfigValue<Boolean> useLootModifier;
+    public final ForgeConfigSpec.ConfigValue<Boolean> farmDropPolicy;
+    public final ForgeConfigSpec.ConfigValue<Double> spawnerDropMultiplier;
+    public final ForgeConfigSpec.ConfigValue<Double> fakePlayerDropMultiplier;
+    public final ForgeConfigSpec.ConfigValue<Integer> farmDropsPerChunkPerMinute;
+    public final ForgeConfigSpec.ConfigValue<Boolean> eventJournal;
+    public final ForgeConfigSpec.ConfigValue<Integer> journalFileSizeMb;
+    public final ForgeConfigSpec.ConfigValue<Integer> journalFiles;
 
     General(ForgeConfigSpec.Builder builder){
       builder.push("General");
@@ -24,10 +52,214 @@ public class ConfigHandler {
       startingHealth = builder
           .comment("Starting Health of Player (Default:20)")
           .define("startingHealth",20);
+      coalesceDrops = builder
+          .comment("Merge heart and wither bone drops from the same chunk into stacks once per tick instead of spawning one item per drop")
+          .define("coalesceDrops", true);
+      maxDropSpawnsPerTick = builder
+          .comment("Maximum number of coalesced drop stacks spawned per tick, the rest is spawned on the following ticks (0 = no limit)")
+          .define("maxDropSpawnsPerTick", 0);
+      watchDropsFile = builder
+          .comment("Reload config/bhc/drops.json automatically when it changes on disk, it can always be reloaded with /bhc reload")
+          .define("watchDropsFile", true);
+      healthCheckInterval = builder
+          .comment("How many ticks between background checks of each player's equipped hearts, in addition to the checks after equipping (0 = disabled)")
+          .define("healthCheckInterval", 200);
+      tickBudgetMs = builder
+          .comment("Average tick time in milliseconds above which the background heart checks are spread further apart")
+          .define("tickBudgetMs", 45.0);
+      useLootModifier = builder
+          .comment("Add heart and wither bone drops through the bhc:heart_drops global loot modifier instead of the death event handler, supports looting and /reload")
+          .define("useLootModifier", false);
+      farmDropPolicy = builder
+          .comment("Limit drops of mobs from spawners and of kills by fake players (e.g. automated mob grinders)")
+          .define("farmDropPolicy", false);
+      spawnerDropMultiplier = builder
+          .comment("Drop chance multiplier for mobs from spawners when farmDropPolicy is enabled")
+          .define("spawnerDropMultiplier", 0.25);
+      fakePlayerDropMultiplier = builder
+          .comment("Drop chance multiplier for kills by fake players when farmDropPolicy is enabled")
+          .define("fakePlayerDropMultiplier", 0.25);
+      farmDropsPerChunkPerMinute = builder
+          .comment("Maximum drops per chunk and minute from farmed mobs when farmDropPolicy is enabled (0 = no limit)")
+          .define("farmDropsPerChunkPerMinute", 8);
+      eventJournal = builder
+          .comment("Record heart drops, consumption, amulet equips and max health changes to binary journal files in bhc/journal for audits")
+          .define("eventJournal", true);
+      journalFileSizeMb = builder
+          .comment("Size of each journal file in MiB")
+          .define("journalFileSizeMb", 16);
+      journalFiles = builder
+          .comment("Number of journal files to keep, the oldest is deleted when a new one is started")
+          .define("journalFiles", 8);
       builder.pop();
     }
   }
+
+  /**
+   * Plain copy of every {@link General} value, rebuilt whenever the config file is loaded or reloaded so hot paths
+   * don't have to go through the config spec. A client connected to a remote server loads the server's file, which
+   * Forge sends at login, and gets the gameplay values again after reloads, see {@link ConfigReload}.
+   */
+  public static class Snapshot {
+    public final int heartStackSize;
+    public final double boneDropRate;
+    public final boolean allowStartingHealthTweaks;
+    public final int startingHealth;
+    public final boolean coalesceDrops;
+    public final int maxDropSpawnsPerTick;
+    public final boolean watchDropsFile;
+    public final int healthCheckInterval;
+    public final double tickBudgetMs;
+    public final boolean useLootModifier;
+    public final boolean farmDropPolicy;
+    public final double spawnerDropMultiplier;
+    public final double fakePlayerDropMultiplier;
+    public final int farmDropsPerChunkPerMinute;
+    public final boolean eventJournal;
+    public final int journalFileSizeMb;
+    public final int journalFiles;
+
+    Snapshot(General general, Values values){
+      this.heartStackSize = values.of(general.heartStackSize);
+      this.boneDropRate = values.of(general.boneDropRate);
+      this.allowStartingHealthTweaks = values.of(general.allowStartingHeathTweaks);
+      this.startingHealth = values.of(general.startingHealth);
+      this.coalesceDrops = values.of(general.coalesceDrops);
+      this.maxDropSpawnsPerTick = values.of(general.maxDropSpawnsPerTick);
+      this.watchDropsFile = values.of(general.watchDropsFile);
+      this.healthCheckInterval = values.of(general.healthCheckInterval);
+      this.tickBudgetMs = values.of(general.tickBudgetMs);
+      this.useLootModifier = values.of(general.useLootModifier);
+      this.farmDropPolicy = values.of(general.farmDropPolicy);
+      this.spawnerDropMultiplier = values.of(general.spawnerDropMultiplier);
+      this.fakePlayerDropMultiplier = values.of(general.fakePlayerDropMultiplier);
+      this.farmDropsPerChunkPerMinute = values.of(general.farmDropsPerChunkPerMinute);
+      this.eventJournal = values.of(general.eventJournal);
+      this.journalFileSizeMb = values.of(general.journalFileSizeMb);
+      this.journalFiles = values.of(general.journalFiles);
+    }
+
+    /**
+     * copy of {@code base} with the gameplay values replaced by the ones sent by the server
+     */
+    private Snapshot(Snapshot base, int heartStackSize, double boneDropRate, boolean allowStartingHealthTweaks, int startingHealth){
+      this.heartStackSize = heartStackSize;
+      this.boneDropRate = boneDropRate;
+      this.allowStartingHealthTweaks = allowStartingHealthTweaks;
+      this.startingHealth = startingHealth;
+      this.coalesceDrops = base.coalesceDrops;
+      this.maxDropSpawnsPerTick = base.maxDropSpawnsPerTick;
+      this.watchDropsFile = base.watchDropsFile;
+      this.healthCheckInterval = base.healthCheckInterval;
+      this.tickBudgetMs = base.tickBudgetMs;
+      this.useLootModifier = base.useLootModifier;
+      this.farmDropPolicy = base.farmDropPolicy;
+      this.spawnerDropMultiplier = base.spawnerDropMultiplier;
+      this.fakePlayerDropMultiplier = base.fakePlayerDropMultiplier;
+      this.farmDropsPerChunkPerMinute = base.farmDropsPerChunkPerMinute;
+      this.eventJournal = base.eventJournal;
+      this.journalFileSizeMb = base.journalFileSizeMb;
+      this.journalFiles = base.journalFiles;
+    }
+  }
+
+  /**
+   * reads one value of {@link General}, either the loaded one or the spec's default
+   */
+  interface Values {
+    <T> T of(ForgeConfigSpec.ConfigValue<T> value);
+  }
+
+  public static class Client{
+    public final ForgeConfigSpec.ConfigValue<Boolean> compactHealthBar;
+
+    Client(ForgeConfigSpec.Builder builder){
+      builder.push("Client");
+      compactHealthBar = builder
+          .comment("Draw more than 10 hearts as a single row of coloured layers instead of the vanilla rows of hearts")
+          .define("compactHealthBar", true);
+      builder.pop();
+    }
+  }
+
   private static final ForgeConfigSpec.Builder BUILDER = new ForgeConfigSpec.Builder();
   public static final General general = new General(BUILDER);
   public static final ForgeConfigSpec configSpec = BUILDER.build();
+
+  private static final ForgeConfigSpec.Builder CLIENT_BUILDER = new ForgeConfigSpec.Builder();
+  public static final Client client = new Client(CLIENT_BUILDER);
+  public static final ForgeConfigSpec clientSpec = CLIENT_BUILDER.build();
+
+  private static volatile boolean compactHealthBar = true;
+
+  private static volatile Snapshot snapshot = new Snapshot(general, ConfigHandler::getDefault);
+
+  /**
+   * @return the values of the last loaded server config, or the defaults before it has been loaded. Both logical
+   * sides read the same values: singleplayer shares the file, a remote client has the server's
+   */
+  public static Snapshot get(){
+    return snapshot;
+  }
+
+  /**
+   * replaces the gameplay values on a client connected to a remote server after its config was reloaded
+   */
+  public static void applyServerValues(int heartStackSize, double boneDropRate, boolean allowStartingHealthTweaks, int startingHealth){
+    snapshot = new Snapshot(snapshot, heartStackSize, boneDropRate, allowStartingHealthTweaks, startingHealth);
+  }
+
+  /**
+   * The General options used to be a COMMON config in config/bhc-common.toml and are per world now. Moves that file to
+   * the defaultconfigs folder, which Forge copies into the serverconfig folder of every world that has no
+   * bhc-server.toml yet, so existing settings carry over instead of being silently ignored.
+   */
+  public static void migrateCommonConfig(){
+    Path legacy = FMLPaths.CONFIGDIR.get().resolve(Reference.MODID + "-common.toml");
+    if(!Files.exists(legacy)) return;
+    Path target = FMLPaths.GAMEDIR.get().resolve(FMLConfig.defaultConfigPath()).resolve(Reference.MODID + "-server.toml");
+    if(Files.exists(target)){
+      BaubleyHeartCanisters.LOGGER.warn("Ignoring {}: the gameplay options are set per world in serverconfig/{} now, and {} already exists", legacy, target.getFileName(), target);
+      return;
+    }
+    try{
+      Files.createDirectories(target.getParent());
+      Files.move(legacy, target);
+      BaubleyHeartCanisters.LOGGER.warn("Moved {} to {}: the gameplay options are set per world in serverconfig/{} now, worlds without that file start from this one",
+          legacy, target, target.getFileName());
+    }catch(IOException e){
+      BaubleyHeartCanisters.LOGGER.error("Unable to move {} to {}, its values are ignored", legacy, target, e);
+    }
+  }
+
+  /**
+   * @return whether the client draws high health as coloured layers, read every frame so it is cached like {@link #get()}
+   */
+  public static boolean isCompactHealthBar(){
+    return compactHealthBar;
+  }
+
+  private static <T> T getValue(ForgeConfigSpec.ConfigValue<T> value){
+    return value.get();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T getDefault(ForgeConfigSpec.ConfigValue<T> value){
+    return (T) ((ForgeConfigSpec.ValueSpec) configSpec.getSpec().get(value.getPath())).getDefault();
+  }
+
+  @SubscribeEvent
+  public static void onLoad(ModConfig.Loading event){
+    if(event.getConfig().getSpec() == configSpec) snapshot = new Snapshot(general, ConfigHandler::getValue);
+    if(event.getConfig().getSpec() == clientSpec) compactHealthBar = client.compactHealthBar.get();
+  }
+
+  @SubscribeEvent
+  public static void onReload(ModConfig.ConfigReloading event){
+    if(event.getConfig().getSpec() == configSpec){
+      snapshot = new Snapshot(general, ConfigHandler::getValue);
+      ConfigReload.sendToAll();
+    }
+    if(event.getConfig().getSpec() == clientSpec) compactHealthBar = client.compactHealthBar.get();
+  }
 }
@@ -0,0 +1,113 @@
+package sora.bhc.handler;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.item.ItemEntity;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import sora.bhc.Reference;
+
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Buffers heart and wither bone drops for the rest of the tick and spawns them as merged stacks, one per item and
+ * chunk, so grinders killing many mobs at once don't create an item entity per heart.
+ */
+@Mod.EventBusSubscriber(modid = Reference.MODID)
+public class DropCoalescer {
+
+    private static final Map<World, Long2ObjectMap<Cell>> buffered = new IdentityHashMap<>();
+    private static final ArrayDeque<Spawn> pending = new ArrayDeque<>();
+
+    public static void drop(Entity entity, Item item, float offsetY) {
+        if (!ConfigHandler.get().coalesceDrops) {
+            entity.entityDropItem(new ItemStack(item), offsetY);
+            return;
+        }
+        Vec3d pos = entity.getPositionVec();
+        long key = ChunkPos.asLong(MathHelper.floor(pos.x) >> 4, MathHelper.floor(pos.z) >> 4);
+        Long2ObjectMap<Cell> cells = buffered.computeIfAbsent(entity.world, w -> new Long2ObjectOpenHashMap<>());
+        Cell cell = cells.get(key);
+        if (cell == null) {
+            cell = new Cell(pos.x, pos.y + offsetY, pos.z);
+            cells.put(key, cell);
+        }
+        cell.counts.addTo(item, 1);
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) return;
+        if (!buffered.isEmpty()) {
+            int limit = ConfigHandler.get().heartStackSize;
+            for (Map.Entry<World, Long2ObjectMap<Cell>> world : buffered.entrySet()) {
+                for (Cell cell : world.getValue().values()) {
+                    for (Reference2IntMap.Entry<Item> drop : cell.counts.reference2IntEntrySet()) {
+                        Item item = drop.getKey();
+                        int max = Math.max(1, Math.min(limit, item.getMaxStackSize()));
+                        for (int left = drop.getIntValue(); left > 0; left -= max) {
+                            pending.add(new Spawn(world.getKey(), cell.x, cell.y, cell.z, new ItemStack(item, Math.min(left, max))));
+                        }
+                    }
+                }
+            }
+            buffered.clear();
+        }
+        int budget = ConfigHandler.get().maxDropSpawnsPerTick;
+        for (int spawned = 0; !pending.isEmpty() && (budget <= 0 || spawned < budget); spawned++) {
+            Spawn spawn = pending.poll();
+            ItemEntity entity = new ItemEntity(spawn.world, spawn.x, spawn.y, spawn.z, spawn.stack);
+            entity.setDefaultPickupDelay();
+            spawn.world.addEntity(entity);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        if (event.getWorld().isRemote()) return;
+        buffered.remove(event.getWorld());
+        Iterator<Spawn> it = pending.iterator();
+        while (it.hasNext()) {
+            if (it.next().world == event.getWorld()) it.remove();
+        }
+    }
+
+    private static class Cell {
+        final double x, y, z;
+        final Reference2IntOpenHashMap<Item> counts = new Reference2IntOpenHashMap<>(4);
+
+        Cell(double x, double y, double z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+    }
+
+    private static class Spawn {
+        final World world;
+        final double x, y, z;
+        final ItemStack stack;
+
+        Spawn(World world, double x, double y, double z, ItemStack stack) {
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.stack = stack;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package sora.bhc.handler;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import net.minecraftforge.fml.loading.FMLPaths;
+import sora.bhc.BaubleyHeartCanisters;
+import sora.bhc.core.BHCConfig;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Owns the current drops.json snapshot. Reloads are parsed and compiled on a background thread and only published
+ * once complete, so {@link DropHandler} always reads a finished {@link DropTable} without locking.
+ */
+public class DropConfigLoader {
+
+    private static final AtomicReference<Snapshot> current = new AtomicReference<>(new Snapshot(new BHCConfig().freeze(), DropTable.EMPTY));
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "BHC drops.json loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static Thread watcher;
+    private static volatile CompletableFuture<Snapshot> bootstrap;
+
+    /**
+     * waits for the initial {@link #loadAsync()} the first time it is called after it
+     */
+    public static Snapshot get() {
+        if (bootstrap != null) awaitBootstrap();
+        return current.get();
+    }
+
+    public static Path getFile() {
+        return FMLPaths.CONFIGDIR.get().resolve("bhc").resolve("drops.json");
+    }
+
+    /**
+     * starts loading drops.json in the background, writing the default file first if there is none, so other mods
+     * can finish their setup meanwhile; {@link #get()} joins it when the first drop needs it
+     */
+    public static void loadAsync() {
+        Path file = getFile();
+        long start = System.nanoTime();
+        bootstrap = CompletableFuture.supplyAsync(() -> {
+            try {
+                if (!Files.exists(file)) writeDefault(file);
+                Snapshot snapshot = parse(file);
+                current.set(snapshot);
+                BaubleyHeartCanisters.LOGGER.info("Loaded {} in {} ms", file, (System.nanoTime() - start) / 1_000_000L);
+                return snapshot;
+            } catch (Exception e) {
+                BaubleyHeartCanisters.LOGGER.error("Failed to load {}, no hearts will drop", file, e);
+                return current.get();
+            }
+        }, executor);
+    }
+
+    /**
+     * blocks until the initial load has finished, logging how long the caller had to wait
+     */
+    public static void awaitBootstrap() {
+        CompletableFuture<Snapshot> future = bootstrap;
+        if (future == null) return;
+        if (!future.isDone()) {
+            long start = System.nanoTime();
+            future.join();
+            BaubleyHeartCanisters.LOGGER.info("Waited {} ms for drops.json", (System.nanoTime() - start) / 1_000_000L);
+        }
+        bootstrap = null;
+    }
+
+    /**
+     * parses and compiles drops.json in the background; the previous snapshot stays active if that fails
+     */
+    public static CompletableFuture<Snapshot> reload() {
+        Path file = getFile();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return parse(file);
+            } catch (Exception e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }, executor).whenComplete((snapshot, error) -> {
+            if (error != null) {
+                BaubleyHeartCanisters.LOGGER.error("Failed to reload {}, keeping the previous drops", file, error.getCause() != null ? error.getCause() : error);
+            } else {
+                current.set(snapshot);
+                BaubleyHeartCanisters.LOGGER.info("Reloaded {}", file);
+            }
+        });
+    }
+
+    public static synchronized void startWatching() {
+        if (watcher != null) return;
+        watcher = new Thread(DropConfigLoader::watch, "BHC drops.json watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private static void watch() {
+        Path file = getFile();
+        try (WatchService service = FileSystems.getDefault().newWatchService()) {
+            file.getParent().register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (file.getFileName().equals(event.context())) changed = true;
+                }
+                key.reset();
+                if (changed) {
+                    Thread.sleep(250); //editors often write in several steps
+                    WatchKey again = service.poll();
+                    if (again != null) {
+                        again.pollEvents();
+                        again.reset();
+                    }
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            BaubleyHeartCanisters.LOGGER.error("Unable to watch {} for changes", file, e);
+        }
+    }
+
+    private static Snapshot parse(Path file) throws IOException {
+        BHCConfig config;
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            config = read(reader);
+        }
+        config.validate();
+        config = config.freeze();
+        return new Snapshot(config, DropTable.compile(config));
+    }
+
+    /**
+     * reads drops.json token by token into a {@link BHCConfig}, without building a tree first
+     */
+    private static BHCConfig read(JsonReader reader) throws IOException {
+        BHCConfig config = new BHCConfig();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!reader.nextName().equals("heartEntries")) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String type = reader.nextName();
+                Map<String, Double> entries = new LinkedHashMap<>();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    entries.put(reader.nextName(), reader.nextDouble());
+                }
+                reader.endObject();
+                config.heartEntries.put(type, entries);
+            }
+            reader.endObject();
+        }
+        reader.endObject();
+        return config;
+    }
+
+    /**
+     * writes the default drops.json to a temporary file first and moves it into place, so a crash can never leave
+     * a truncated file behind
+     */
+    private static void writeDefault(Path file) throws IOException {
+        BHCConfig config = new BHCConfig();
+        config.addEntrytoMap("red", "hostile", 0.05);
+        config.addEntrytoMap("yellow", "boss", 1.0);
+        config.addEntrytoMap("green", "dragon", 1.0);
+        config.addEntrytoMap("blue", "minecraft:evoker", 1.0);
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), "drops", ".json.tmp");
+        try {
+            try (JsonWriter writer = new JsonWriter(Files.newBufferedWriter(temp, StandardCharsets.UTF_8))) {
+                writer.setIndent("  ");
+                writer.beginObject().name("heartEntries").beginObject();
+                for (Map.Entry<String, Map<String, Double>> type : config.heartEntries.entrySet()) {
+                    writer.name(type.getKey()).beginObject();
+                    for (Map.Entry<String, Double> entry : type.getValue().entrySet()) {
+                        writer.name(entry.getKey()).value(entry.getValue());
+                    }
+                    writer.endObject();
+                }
+                writer.endObject().endObject();
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public static class Snapshot {
+        public final BHCConfig config;
+        public final DropTable table;
+
+        Snapshot(BHCConfig config, DropTable table) {
+            this.config = config;
+            this.table = table;
+        }
+    }
+}
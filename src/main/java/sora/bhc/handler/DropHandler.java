@@ -1,24 +1,17 @@
 package sora.bhc.handler;
 
-import com.google.gson.JsonElement;
+import net.minecraft.entity.Entity;
 import net.minecraft.entity.LivingEntity;
-import net.minecraft.entity.MobEntity;
-import net.minecraft.entity.boss.dragon.EnderDragonEntity;
-import net.minecraft.entity.monster.IMob;
-import net.minecraft.entity.monster.WitherSkeletonEntity;
 import net.minecraft.entity.player.PlayerEntity;
-import net.minecraft.item.ItemStack;
+import net.minecraft.item.Item;
 import net.minecraftforge.event.entity.living.LivingDropsEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
-import net.minecraftforge.fml.ModList;
 import net.minecraftforge.fml.common.Mod;
-import sora.bhc.BaubleyHeartCanisters;
 import sora.bhc.Reference;
 import sora.bhc.init.ModItems;
+import sora.bhc.metrics.BHCMetrics;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import javax.annotation.Nullable;
 import java.util.Random;
 
 @Mod.EventBusSubscriber(modid = Reference.MODID)
@@ -28,74 +21,66 @@ public class DropHandler {
     public static void onEntityDrop(LivingDropsEvent event) {
         LivingEntity entity = event.getEntityLiving();
         if (entity.world.isRemote || entity instanceof PlayerEntity) return; //no duplicate glitch on client!
-        if (!ModList.get().isLoaded("tinkersconstruct") && entity instanceof WitherSkeletonEntity) {
-            if (entity.world.rand.nextDouble() < ConfigHandler.general.boneDropRate.get()) {
-                entity.entityDropItem(ModItems.WITHER_BONE, 1);
-            }
+        if (ConfigHandler.get().useLootModifier) return; //HeartLootModifier adds the drops instead
+        long start = System.nanoTime();
+        entity.world.getProfiler().startSection("bhc_drops");
+        BHCMetrics.DROP_EVENTS.increment();
+        DropTable.Entry drops = DropConfigLoader.get().table.get(entity);
+        if (!drops.isEmpty()) countDeath(roll(drops, entity, event.getSource().getTrueSource(), 0.0D, DropCoalescer::drop));
+        entity.world.getProfiler().endSection();
+        BHCMetrics.DROP_TIME.record(System.nanoTime() - start);
+    }
+
+    /**
+     * rolls the drops of a dying entity and passes each successful roll with its vertical offset to {@code out},
+     * recording the entry's hit rate and applying the {@link FarmDropPolicy}. The global drop metrics are left to
+     * {@link #countDeath}, since a death may roll several entries.
+     *
+     * @param bonus added to every chance, e.g. for looting
+     * @return the number of items dropped
+     */
+    public static int roll(DropTable.Entry drops, LivingEntity entity, @Nullable Entity killer, double bonus, Drop out) {
+        if (drops.isEmpty()) return 0;
+        drops.deaths.increment();
+        boolean farmed = FarmDropPolicy.isFarmed(entity, killer);
+        double multiplier = farmed ? FarmDropPolicy.getMultiplier(entity, killer) : 1.0D;
+        int rolled = 0;
+        Random rand = entity.world.rand;
+        if (drops.witherBone && roll(rand, ConfigHandler.get().boneDropRate + bonus, farmed, multiplier, entity)) {
+            out.drop(entity, ModItems.WITHER_BONE, 1);
+            AuditJournal.drop(entity, -1, killer);
+            rolled++;
         }
-        for (ItemStack stack : getEntityDrops(entity)) {
-            entity.entityDropItem(stack.getItem(), 0);
+        for (int i = 0; i < drops.items.length; i++) {
+            if (roll(rand, drops.chances[i] + bonus, farmed, multiplier, entity)) {
+                out.drop(entity, drops.items[i], 0);
+                AuditJournal.drop(entity, drops.hearts[i], killer);
+                rolled++;
+            }
         }
+        if (rolled > 0) drops.hits.increment();
+        return rolled;
     }
 
-
-    public static List<ItemStack> getEntityDrops(LivingEntity entity) {
-        List<ItemStack> list = new ArrayList<>();
-        handleEntry("red",entity,list);
-        handleEntry("yellow",entity,list);
-        handleEntry("green",entity,list);
-        handleEntry("blue",entity,list);
-        return list;
+    /**
+     * records a death that matched at least one entry, once per death however many entries were rolled for it
+     */
+    public static void countDeath(int rolled) {
+        BHCMetrics.DROP_MATCHES.increment();
+        BHCMetrics.DROPS_ROLLED.add(rolled);
     }
 
-    public static void handleEntry(String category, LivingEntity entity, List<ItemStack> items) {
-        for (Map.Entry<String, Double> entry : BaubleyHeartCanisters.config.getHeartTypeEntries(category).entrySet()) {
-            ItemStack stack = ItemStack.EMPTY;
-            switch (category) {
-                case "red":
-                    stack = new ItemStack(ModItems.RED_HEART);
-                    break;
-                case "yellow":
-                    stack = new ItemStack(ModItems.YELLOW_HEART);
-                    break;
-                case "green":
-                    stack = new ItemStack(ModItems.GREEN_HEART);
-                    break;
-                case "blue":
-                    stack = new ItemStack(ModItems.BLUE_HEART);
-                    break;
-            }
-            if (entry.getKey().equals(entity.getEntityString())) {
-                addWithPercent(items, stack, entry.getValue());
-            } else {
-                switch (entry.getKey()) {
-                    case "hostile":
-                        if (entity instanceof IMob && entity.isNonBoss()) {
-                            addWithPercent(items, stack, entry.getValue());
-                        }
-                        break;
-                    case "boss":
-                        if (!entity.isNonBoss() && !(entity instanceof EnderDragonEntity)) {
-                            addWithPercent(items, stack, entry.getValue());
-                        }
-                        break;
-                    case "dragon":
-                        if (entity instanceof EnderDragonEntity) {
-                            addWithPercent(items, stack, entry.getValue());
-                        }
-                        break;
-                }
-            }
-
+    private static boolean roll(Random rand, double chance, boolean farmed, double multiplier, LivingEntity entity) {
+        double roll = rand.nextDouble();
+        if (roll >= chance) return false;
+        if (farmed && (roll >= chance * multiplier || !FarmDropPolicy.tryAcquire(entity))) {
+            BHCMetrics.DROPS_SUPPRESSED.increment();
+            return false;
         }
-
+        return true;
     }
 
-    public static void addWithPercent(List<ItemStack> list, ItemStack stack, double percentage) {
-        Random random = new Random();
-        int percent = (int) (percentage * 100);
-        if (random.nextInt(100) <= percent) {
-            list.add(stack);
-        }
+    public interface Drop {
+        void drop(Entity entity, Item item, float offsetY);
     }
 }
@@ -0,0 +1,125 @@
+package sora.bhc.handler;
+
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.boss.dragon.EnderDragonEntity;
+import net.minecraft.entity.monster.IMob;
+import net.minecraft.entity.monster.WitherSkeletonEntity;
+import net.minecraft.item.Item;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.fml.ModList;
+import net.minecraftforge.registries.ForgeRegistries;
+import sora.bhc.BaubleyHeartCanisters;
+import sora.bhc.core.BHCConfig;
+import sora.bhc.core.DropRules;
+import sora.bhc.init.ModItems;
+import sora.bhc.util.HeartType;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compiled form of {@link BHCConfig}: the rules themselves are evaluated by {@link DropRules}, this resolves them
+ * once per {@link EntityType} the first time an entity of that type dies, since the "hostile"/"boss"/"dragon"
+ * classes depend on the entity's class.
+ */
+public class DropTable {
+
+    public static final DropTable EMPTY = new DropTable(DropRules.compile(new BHCConfig(), category -> -1), false);
+
+    private static final Entry NONE = new Entry(new Item[0], new int[0], new double[0], false);
+
+    private final DropRules rules;
+    private final boolean witherBones;
+    private final Map<EntityType<?>, Entry> byType = new ConcurrentHashMap<>();
+
+    private DropTable(DropRules rules, boolean witherBones) {
+        this.rules = rules;
+        this.witherBones = witherBones;
+    }
+
+    public static DropTable compile(BHCConfig config) {
+        DropRules rules = DropRules.compile(config, DropTable::getHeartIndex, DropTable::normalizeEntityId);
+        for (String name : rules.getEntityIds()) {
+            ResourceLocation id = ResourceLocation.tryCreate(name);
+            if (id == null || !ForgeRegistries.ENTITIES.containsKey(id)) {
+                BaubleyHeartCanisters.LOGGER.warn("Unknown entity '{}' in drops.json, it will never drop anything", name);
+            }
+        }
+        return new DropTable(rules, !ModList.get().isLoaded("tinkersconstruct"));
+    }
+
+    /**
+     * @return the drops for the entity's type, never null; types without any rule share a single empty entry
+     */
+    public Entry get(LivingEntity entity) {
+        Entry entry = byType.get(entity.getType());
+        if (entry == null) {
+            entry = resolve(entity);
+            byType.put(entity.getType(), entry);
+        }
+        return entry;
+    }
+
+    /**
+     * @return every entity type resolved since this table was compiled
+     */
+    public Map<EntityType<?>, Entry> getResolved() {
+        return Collections.unmodifiableMap(byType);
+    }
+
+    private Entry resolve(LivingEntity entity) {
+        ResourceLocation id = entity.getType().getRegistryName();
+        int flags = DropRules.flags(entity instanceof IMob, entity.isNonBoss(), entity instanceof EnderDragonEntity);
+        DropRules.Drops drops = rules.resolve(id != null ? id.toString() : null, flags);
+        boolean witherBone = witherBones && entity instanceof WitherSkeletonEntity;
+        if (drops.isEmpty() && !witherBone) return NONE;
+        Item[] items = new Item[drops.hearts.length];
+        for (int i = 0; i < items.length; i++) items[i] = ModItems.HEARTS[drops.hearts[i]];
+        return new Entry(items, drops.hearts, drops.chances, witherBone);
+    }
+
+    /**
+     * @return the key in the form entity types are looked up by, e.g. "zombie" becomes "minecraft:zombie"; keys that
+     * are no valid id are kept so the unknown entity warning names them
+     */
+    private static String normalizeEntityId(String key) {
+        ResourceLocation id = ResourceLocation.tryCreate(key);
+        return id != null ? id.toString() : key;
+    }
+
+    /**
+     * @return the index of the {@link HeartType} dropped by a heart category of drops.json, only used while compiling
+     */
+    private static int getHeartIndex(String category) {
+        for (HeartType type : HeartType.values()) {
+            if (type.dropCategory.equals(category)) return type.index;
+        }
+        BaubleyHeartCanisters.LOGGER.warn("Unknown heart type '{}' in drops.json, skipping", category);
+        return -1;
+    }
+
+    public static class Entry {
+        public final Item[] items;
+        /** {@link HeartType} index of each item */
+        public final int[] hearts;
+        public final double[] chances;
+        public final boolean witherBone;
+        /** deaths of this type and deaths that dropped at least one item, for pruning rules that never hit */
+        public final LongAdder deaths = new LongAdder();
+        public final LongAdder hits = new LongAdder();
+
+        Entry(Item[] items, int[] hearts, double[] chances, boolean witherBone) {
+            this.items = items;
+            this.hearts = hearts;
+            this.chances = chances;
+            this.witherBone = witherBone;
+        }
+
+        public boolean isEmpty() {
+            return items.length == 0 && !witherBone;
+        }
+    }
+}
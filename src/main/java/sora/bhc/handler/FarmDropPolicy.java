@@ -0,0 +1,120 @@
+package sora.bhc.handler;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraftforge.common.util.FakePlayer;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.EntityLeaveWorldEvent;
+import net.minecraftforge.event.entity.living.LivingSpawnEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import sora.bhc.Reference;
+
+import javax.annotation.Nullable;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Opt-in limits for drops from mob farms: entities spawned by a spawner are remembered by entity id while they are
+ * in the world, and their drops as well as every kill by a {@link FakePlayer} are scaled down and limited by a
+ * per-chunk token bucket.
+ */
+@Mod.EventBusSubscriber(modid = Reference.MODID)
+public class FarmDropPolicy {
+
+    private static final IntSet spawnerMobs = new IntOpenHashSet();
+    private static final Map<World, Long2ObjectMap<Bucket>> buckets = new IdentityHashMap<>();
+
+    /**
+     * @return whether the death counts as farmed, always false while the policy is disabled
+     */
+    public static boolean isFarmed(LivingEntity entity, @Nullable Entity killer) {
+        if (!ConfigHandler.get().farmDropPolicy) return false;
+        return killer instanceof FakePlayer || spawnerMobs.contains(entity.getEntityId());
+    }
+
+    /**
+     * @return the factor for the drop chances of a farmed death
+     */
+    public static double getMultiplier(LivingEntity entity, @Nullable Entity killer) {
+        ConfigHandler.Snapshot config = ConfigHandler.get();
+        double multiplier = 1.0D;
+        if (spawnerMobs.contains(entity.getEntityId())) multiplier = Math.min(multiplier, config.spawnerDropMultiplier);
+        if (killer instanceof FakePlayer) multiplier = Math.min(multiplier, config.fakePlayerDropMultiplier);
+        return multiplier;
+    }
+
+    /**
+     * takes one token from the bucket of the entity's chunk
+     *
+     * @return false if the chunk has run out of farmed drops for now
+     */
+    public static boolean tryAcquire(LivingEntity entity) {
+        int perMinute = ConfigHandler.get().farmDropsPerChunkPerMinute;
+        if (perMinute <= 0) return true;
+        long now = entity.world.getGameTime();
+        long chunk = ChunkPos.asLong(((int) Math.floor(entity.getPosX())) >> 4, ((int) Math.floor(entity.getPosZ())) >> 4);
+        Bucket bucket = buckets.computeIfAbsent(entity.world, w -> new Long2ObjectOpenHashMap<>()).get(chunk);
+        if (bucket == null) {
+            bucket = new Bucket(perMinute, now);
+            buckets.get(entity.world).put(chunk, bucket);
+        }
+        bucket.refill(perMinute, now);
+        if (bucket.tokens < 1.0D) return false;
+        bucket.tokens -= 1.0D;
+        return true;
+    }
+
+    @SubscribeEvent
+    public static void onSpecialSpawn(LivingSpawnEvent.SpecialSpawn event) {
+        if (ConfigHandler.get().farmDropPolicy && event.getSpawner() != null && !event.getWorld().isRemote()) {
+            spawnerMobs.add(event.getEntity().getEntityId());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onLeaveWorld(EntityLeaveWorldEvent event) {
+        if (!spawnerMobs.isEmpty() && !event.getWorld().isRemote) spawnerMobs.remove(event.getEntity().getEntityId());
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || buckets.isEmpty()) return;
+        int perMinute = ConfigHandler.get().farmDropsPerChunkPerMinute;
+        buckets.forEach((world, map) -> {
+            if (world.getGameTime() % 1200 != 0) return;
+            long now = world.getGameTime();
+            map.values().removeIf(bucket -> {
+                bucket.refill(perMinute, now);
+                return bucket.tokens >= perMinute; //a full bucket is the same as none
+            });
+        });
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        buckets.remove(event.getWorld().getWorld());
+    }
+
+    private static class Bucket {
+        double tokens;
+        long lastRefill;
+
+        Bucket(int capacity, long now) {
+            this.tokens = capacity;
+            this.lastRefill = now;
+        }
+
+        void refill(int perMinute, long now) {
+            tokens = Math.min(perMinute, tokens + (now - lastRefill) * perMinute / 1200.0D);
+            lastRefill = now;
+        }
+    }
+}
@@ -1,78 +1,159 @@
-//package sora.bhc.handler;
-//
-//import com.google.common.base.Preconditions;
-//import net.minecraft.entity.SharedMonsterAttributes;
-//import net.minecraft.entity.ai.attributes.AttributeModifier;
-//import net.minecraft.entity.ai.attributes.IAttributeInstance;
-//import net.minecraft.entity.player.PlayerEntity;
-//import net.minecraft.entity.player.ServerPlayerEntity;
-//import net.minecraft.item.ItemStack;
-//import net.minecraft.util.math.MathHelper;
-//import net.minecraftforge.event.TickEvent;
-//import net.minecraftforge.eventbus.api.SubscribeEvent;
-//import net.minecraftforge.fml.common.Mod;
-//import sora.bhc.BaubleyHeartCanisters;
-//import sora.bhc.Reference;
-//import sora.bhc.items.BaseHeartCanister;
-//import sora.bhc.items.ItemHeartAmulet;
-//import sora.bhc.util.HeartType;
-//import top.theillusivec4.curios.api.capability.CuriosCapability;
-//import top.theillusivec4.curios.api.capability.ICurioItemHandler;
-//
-//import java.util.UUID;
-//
-///**
-// * @author UpcraftLP
-// */
-//@Mod.EventBusSubscriber(modid = Reference.MODID)
-//public class HealthHandler {
-//
-//    private static final UUID HEALTH_MODIFIER = UUID.fromString("caa44aa0-9e6e-4a57-9759-d2f64abfb7d3");
-//
-//    @SubscribeEvent
-//    public static void onPlayerUpdate(TickEvent.PlayerTickEvent event) {
-//        //only sync every 10 ticks
-//        if (event.phase == TickEvent.Phase.END && !event.player.world.isRemote && event.player.openContainer == event.player.container && event.player instanceof ServerPlayerEntity && ((ServerPlayerEntity) event.player).world.getGameTime() % 10 == 0) {
-//            PlayerEntity player = (PlayerEntity) event.player;
-//            IAttributeInstance health = player.getAttribute(SharedMonsterAttributes.MAX_HEALTH);
-//            if(player.getCapability(CuriosCapability.INVENTORY, null) != null) {
-//
-//                ICurioItemHandler baublesInventory = (ICurioItemHandler) player.getCapability(CuriosCapability.INVENTORY, null);
-//                float diff = player.getMaxHealth() - player.getHealth();
-//                int[] hearts = new int[HeartType.values().length];
-//                for(int slot = 0; slot < baublesInventory.getSlots(); slot++) {
-//                    ItemStack slotStack = baublesInventory.getStackInSlot("s",slot);
-//                    if(!slotStack.isEmpty()) {
-//                        if(slotStack.getItem() instanceof BaseHeartCanister) {
-//                            HeartType type = ((BaseHeartCanister) slotStack.getItem()).type;
-//                            hearts[type.ordinal()] += slotStack.getCount() * 2;
-//                        }
-//                        else if(slotStack.getItem() instanceof ItemHeartAmulet) {
-//                            int[] pendantHearts = ((ItemHeartAmulet) slotStack.getItem()).getHeartCount(slotStack);
-//                            Preconditions.checkArgument(pendantHearts.length == HeartType.values().length, "Array must be same length as enum length!");
-//                            for(int i = 0; i < hearts.length; i++) {
-//                                hearts[i] += pendantHearts[i];
-//                            }
-//                        }
-//                    }
-//                }
-//                int extraHearts = 0;
-//                for(int i = 0; i < hearts.length; i++) {
-//                    extraHearts += MathHelper.clamp(hearts[i], 0, ConfigHandler.general.heartStackSize.get() * 2); //make sure to not bypass the limit; bugfix: this is half hearts, so we need to double the limit...
-//                }
-//                AttributeModifier modifier = health.getModifier(HEALTH_MODIFIER);
-//                if(modifier != null) {
-//                    if(modifier.getAmount() == extraHearts) return;
-//                    else health.removeModifier(modifier);
-//                }
-//              health.applyModifier(new AttributeModifier(HEALTH_MODIFIER,BaubleyHeartCanisters.MODID + ":extra_hearts", extraHearts, AttributeModifier.Operation.ADDITION));
-//                float amount = MathHelper.clamp(player.getMaxHealth() - diff, 0.0F, player.getMaxHealth()); //bugfix: death by removing heart canisters could cause loss of items!
-//                if(amount > 0.0F) player.setHealth(amount); //no healing glitch by adding and removing heart canisters!
-//                else {
-//                    player.closeScreen();
-//                    player.onKillCommand();
-//                }
-//            }
-//        }
-//    }
-//}
+package sora.bhc.handler;
+
+import net.minecraft.entity.SharedMonsterAttributes;
+import net.minecraft.entity.ai.attributes.AttributeModifier;
+import net.minecraft.entity.ai.attributes.IAttributeInstance;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.MathHelper;
+import net.minecraftforge.common.util.FakePlayer;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.player.PlayerContainerEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.server.ServerLifecycleHooks;
+import sora.bhc.BaubleyHeartCanisters;
+import sora.bhc.Reference;
+import sora.bhc.capability.HeartLedger;
+import sora.bhc.capability.HeartSummary;
+import sora.bhc.core.HeartMath;
+import sora.bhc.items.ItemHeartAmulet;
+import sora.bhc.metrics.BHCMetrics;
+import sora.bhc.network.HeartSync;
+import sora.bhc.util.HeartType;
+import top.theillusivec4.curios.api.CuriosAPI;
+import top.theillusivec4.curios.api.event.CurioChangeEvent;
+import top.theillusivec4.curios.api.inventory.CurioStackHandler;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Recomputes the extra max health of a player only after something that can change their equipped hearts happened,
+ * instead of scanning every player's curios on a fixed interval. The result is kept in the player's
+ * {@link HeartLedger}, so login, respawn and dimension changes only re-apply it.
+ *
+ * @author UpcraftLP
+ */
+@Mod.EventBusSubscriber(modid = Reference.MODID)
+public class HealthHandler {
+
+    private static final UUID HEALTH_MODIFIER = UUID.fromString("caa44aa0-9e6e-4a57-9759-d2f64abfb7d3");
+
+    private static final Set<UUID> dirty = new HashSet<>();
+
+    /**
+     * queues a health update that re-applies the ledger, see {@link #invalidate(PlayerEntity)} for a full scan
+     */
+    public static void markDirty(PlayerEntity player) {
+        if (player instanceof ServerPlayerEntity) dirty.add(player.getUniqueID());
+    }
+
+    /**
+     * queues a health update that scans the player's curios again
+     */
+    public static void invalidate(PlayerEntity player) {
+        HeartLedger.get(player).invalidate();
+        markDirty(player);
+    }
+
+    @SubscribeEvent
+    public static void onCurioChange(CurioChangeEvent event) {
+        if (event.getEntityLiving() instanceof PlayerEntity) invalidate((PlayerEntity) event.getEntityLiving());
+    }
+
+    @SubscribeEvent
+    public static void onContainerClose(PlayerContainerEvent.Close event) {
+        invalidate(event.getPlayer());
+    }
+
+    @SubscribeEvent
+    public static void onLogin(PlayerEvent.PlayerLoggedInEvent event) {
+        markDirty(event.getPlayer());
+    }
+
+    @SubscribeEvent
+    public static void onRespawn(PlayerEvent.PlayerRespawnEvent event) {
+        markDirty(event.getPlayer());
+    }
+
+    @SubscribeEvent
+    public static void onChangeDimension(PlayerEvent.PlayerChangedDimensionEvent event) {
+        markDirty(event.getPlayer());
+    }
+
+    @SubscribeEvent
+    public static void onLogout(PlayerEvent.PlayerLoggedOutEvent event) {
+        dirty.remove(event.getPlayer().getUniqueID());
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || dirty.isEmpty()) return;
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        dirty.removeIf(id -> {
+            ServerPlayerEntity player = server.getPlayerList().getPlayerByUUID(id);
+            if (player == null) return true;
+            if (player.openContainer != player.container) return false; //wait until the player has closed their inventory
+            updateHealth(player);
+            return true;
+        });
+    }
+
+    public static int[] getHearts(PlayerEntity player) {
+        int[] hearts = new int[HeartType.count()];
+        CuriosAPI.getCuriosHandler(player).ifPresent(handler -> {
+            for (CurioStackHandler stacks : handler.getCurioMap().values()) {
+                for (int slot = 0; slot < stacks.getSlots(); slot++) {
+                    ItemStack slotStack = stacks.getStackInSlot(slot);
+                    if (slotStack.getItem() instanceof ItemHeartAmulet) { //canisters only count inside an amulet
+                        HeartSummary.get(slotStack).addTo(hearts);
+                    }
+                }
+            }
+        });
+        return hearts;
+    }
+
+    public static void updateHealth(PlayerEntity player) {
+        long start = System.nanoTime();
+        player.world.getProfiler().startSection("bhc_health");
+        BHCMetrics.HEALTH_UPDATES.increment();
+        applyHealth(player);
+        player.world.getProfiler().endSection();
+        BHCMetrics.HEALTH_TIME.record(System.nanoTime() - start);
+    }
+
+    private static void applyHealth(PlayerEntity player) {
+        IAttributeInstance health = player.getAttribute(SharedMonsterAttributes.MAX_HEALTH);
+        float diff = player.getMaxHealth() - player.getHealth();
+        HeartLedger ledger = HeartLedger.get(player);
+        if (!ledger.isValid()) {
+            int[] hearts = getHearts(player);
+            int extraHearts = HeartMath.clampAndTotal(hearts, HeartType.getLimits(ConfigHandler.get().heartStackSize)); //make sure to not bypass the limit; bugfix: this is half hearts, so the limits are doubled...
+            ledger.set(hearts, extraHearts);
+            BHCMetrics.HEALTH_SCANS.increment();
+        }
+        int extraHearts = ledger.getModifier();
+        if (player instanceof ServerPlayerEntity) HeartSync.update((ServerPlayerEntity) player, ledger.getHearts());
+        if (player instanceof ServerPlayerEntity && !(player instanceof FakePlayer)) HeartLeaderboard.get(player.getServer()).record(player.getUniqueID(), ledger.getHearts());
+        AttributeModifier modifier = health.getModifier(HEALTH_MODIFIER);
+        if (modifier != null) {
+            if (modifier.getAmount() == extraHearts) return;
+            else health.removeModifier(modifier);
+        }
+        BHCMetrics.MODIFIER_APPLIES.increment();
+        AuditJournal.maxHealth(player, extraHearts);
+        health.applyModifier(new AttributeModifier(HEALTH_MODIFIER, BaubleyHeartCanisters.MODID + ":extra_hearts", extraHearts, AttributeModifier.Operation.ADDITION));
+        float amount = MathHelper.clamp(player.getMaxHealth() - diff, 0.0F, player.getMaxHealth()); //bugfix: death by removing heart canisters could cause loss of items!
+        if (amount > 0.0F) player.setHealth(amount); //no healing glitch by adding and removing heart canisters!
+        else {
+            player.closeScreen();
+            player.onKillCommand();
+        }
+    }
+}
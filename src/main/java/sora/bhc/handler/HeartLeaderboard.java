@@ -0,0 +1,216 @@
+package sora.bhc.handler;
+
+import com.google.gson.stream.JsonWriter;
+import com.mojang.authlib.GameProfile;
+import it.unimi.dsi.fastutil.ints.IntComparator;
+import it.unimi.dsi.fastutil.ints.IntRBTreeSet;
+import it.unimi.dsi.fastutil.ints.IntSortedSet;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.server.MinecraftServer;
+import net.minecraftforge.common.util.Constants;
+import net.minecraft.world.dimension.DimensionType;
+import net.minecraft.world.storage.WorldSavedData;
+import sora.bhc.Reference;
+import sora.bhc.util.HeartType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Per-player heart totals of everyone who ever equipped hearts, stored with the overworld so offline players can be
+ * ranked without reading their player files. Each player is a fixed record of their UUID and the half hearts per
+ * {@link HeartType} plus the total; one sorted index per column keeps {@code /bhc top} at O(n) for the first n. The
+ * type names are saved with the columns, which are matched by name when loaded.
+ */
+public class HeartLeaderboard extends WorldSavedData {
+
+    public static final String NAME = Reference.MODID + "_leaderboard";
+    /** per-type half hearts followed by the total */
+    public static final int COLUMNS = HeartType.count() + 1;
+    public static final int TOTAL = COLUMNS - 1;
+
+    private final Object2IntMap<UUID> slots = new Object2IntOpenHashMap<>();
+    private long[] ids = new long[32];
+    private int[] values = new int[16 * COLUMNS];
+    private int size;
+    private final IntSortedSet[] ranking = new IntSortedSet[COLUMNS];
+
+    public HeartLeaderboard() {
+        super(NAME);
+        slots.defaultReturnValue(-1);
+        for (int column = 0; column < COLUMNS; column++) ranking[column] = new IntRBTreeSet(byColumn(column));
+    }
+
+    public static HeartLeaderboard get(MinecraftServer server) {
+        return server.getWorld(DimensionType.OVERWORLD).getSavedData().getOrCreate(HeartLeaderboard::new, NAME);
+    }
+
+    /**
+     * stores the clamped half hearts per type of the player, a no-op if nothing changed
+     */
+    public void record(UUID id, int[] hearts) {
+        int slot = slots.getInt(id);
+        if (slot < 0) {
+            slot = add(id);
+        } else if (matches(slot, hearts)) {
+            return;
+        } else {
+            for (IntSortedSet set : ranking) set.remove(slot);
+        }
+        int total = 0;
+        for (int i = 0; i < hearts.length; i++) {
+            values[slot * COLUMNS + i] = hearts[i];
+            total += hearts[i];
+        }
+        values[slot * COLUMNS + TOTAL] = total;
+        for (IntSortedSet set : ranking) set.add(slot);
+        markDirty();
+    }
+
+    /**
+     * @param column a {@link HeartType} index or {@link #TOTAL}
+     * @return up to {@code limit} entries, highest first
+     */
+    public List<Entry> top(int column, int limit) {
+        List<Entry> top = new ArrayList<>(Math.min(limit, size));
+        for (int slot : ranking[column]) {
+            if (top.size() >= limit || values[slot * COLUMNS + column] <= 0) break;
+            top.add(entry(slot));
+        }
+        return top;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return a copy of every record, for writing it out off the server thread
+     */
+    public List<Entry> snapshot() {
+        List<Entry> entries = new ArrayList<>(size);
+        for (int slot : ranking[TOTAL]) entries.add(entry(slot));
+        return entries;
+    }
+
+    /**
+     * @return the last known name of every entry, from the server's profile cache
+     */
+    public static List<String> getNames(List<Entry> entries, MinecraftServer server) {
+        List<String> names = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            GameProfile profile = server.getPlayerProfileCache().getProfileByUUID(entry.id);
+            names.add(profile != null ? profile.getName() : null);
+        }
+        return names;
+    }
+
+    /**
+     * writes the records as a JSON array, does no lookups so it can run on any thread
+     */
+    public static void export(List<Entry> entries, List<String> names, Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (JsonWriter writer = new JsonWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            writer.setIndent("  ");
+            writer.beginArray();
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                writer.beginObject();
+                writer.name("uuid").value(entry.id.toString());
+                writer.name("name").value(names.get(i));
+                for (HeartType type : HeartType.values()) writer.name(type.name).value(entry.values[type.index]);
+                writer.name("total").value(entry.values[TOTAL]);
+                writer.endObject();
+            }
+            writer.endArray();
+        }
+    }
+
+    @Override
+    public void read(CompoundNBT nbt) {
+        long[] storedIds = nbt.getLongArray("ids");
+        int[] storedValues = nbt.getIntArray("values");
+        int columns = nbt.getInt("columns");
+        int count = storedIds.length / 2;
+        if (columns <= 0 || storedValues.length != count * columns) return;
+        int[] indices;
+        if (nbt.contains("types", Constants.NBT.TAG_LIST)) {
+            indices = HeartType.readIndices(nbt.getList("types", Constants.NBT.TAG_STRING));
+        } else { //saved before the names were, in the original order
+            indices = new int[Math.min(columns - 1, HeartType.count())];
+            for (int column = 0; column < indices.length; column++) indices[column] = column;
+        }
+        int[] hearts = new int[COLUMNS - 1];
+        for (int i = 0; i < count; i++) {
+            Arrays.fill(hearts, 0);
+            for (int column = 0; column < Math.min(columns - 1, indices.length); column++) {
+                if (indices[column] >= 0) hearts[indices[column]] = storedValues[i * columns + column];
+            }
+            record(new UUID(storedIds[i * 2], storedIds[i * 2 + 1]), hearts);
+        }
+    }
+
+    @Override
+    public CompoundNBT write(CompoundNBT nbt) {
+        nbt.putInt("columns", COLUMNS);
+        nbt.put("types", HeartType.writeNames());
+        nbt.putLongArray("ids", Arrays.copyOf(ids, size * 2));
+        nbt.putIntArray("values", Arrays.copyOf(values, size * COLUMNS));
+        return nbt;
+    }
+
+    private int add(UUID id) {
+        int slot = size++;
+        if (ids.length < size * 2) ids = Arrays.copyOf(ids, ids.length * 2);
+        if (values.length < size * COLUMNS) values = Arrays.copyOf(values, values.length * 2);
+        ids[slot * 2] = id.getMostSignificantBits();
+        ids[slot * 2 + 1] = id.getLeastSignificantBits();
+        slots.put(id, slot);
+        return slot;
+    }
+
+    private boolean matches(int slot, int[] hearts) {
+        for (int i = 0; i < hearts.length; i++) {
+            if (values[slot * COLUMNS + i] != hearts[i]) return false;
+        }
+        return true;
+    }
+
+    private Entry entry(int slot) {
+        return new Entry(new UUID(ids[slot * 2], ids[slot * 2 + 1]), Arrays.copyOfRange(values, slot * COLUMNS, slot * COLUMNS + COLUMNS));
+    }
+
+    private IntComparator byColumn(int column) {
+        return new IntComparator() {
+            @Override
+            public int compare(int a, int b) {
+                int result = Integer.compare(values[b * COLUMNS + column], values[a * COLUMNS + column]);
+                return result != 0 ? result : Integer.compare(a, b);
+            }
+
+            @Override
+            public int compare(Integer a, Integer b) {
+                return compare(a.intValue(), b.intValue());
+            }
+        };
+    }
+
+    public static class Entry {
+        public final UUID id;
+        /** per-type half hearts followed by the total */
+        public final int[] values;
+
+        Entry(UUID id, int[] values) {
+            this.id = id;
+            this.values = values;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package sora.bhc.handler;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import net.minecraft.enchantment.EnchantmentHelper;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.JSONUtils;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.world.storage.loot.LootContext;
+import net.minecraft.world.storage.loot.LootParameters;
+import net.minecraft.world.storage.loot.conditions.ILootCondition;
+import net.minecraftforge.common.loot.GlobalLootModifierSerializer;
+import net.minecraftforge.common.loot.LootModifier;
+import sora.bhc.core.BHCConfig;
+import sora.bhc.metrics.BHCMetrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adds heart and wither bone drops to the loot generated for a dying entity, as an alternative to
+ * {@link DropHandler} that is only active with {@code useLootModifier} enabled. Defined by
+ * {@code data/bhc/loot_modifiers/heart_drops.json}, so it is reloaded together with the loot tables; that file can
+ * import the rules of drops.json and add its own {@code entries} in the same format.
+ */
+public class HeartLootModifier extends LootModifier {
+
+    private final boolean importDropsJson;
+    private final DropTable entries;
+    private final double lootingBonus;
+
+    public HeartLootModifier(ILootCondition[] conditions, boolean importDropsJson, DropTable entries, double lootingBonus) {
+        super(conditions);
+        this.importDropsJson = importDropsJson;
+        this.entries = entries;
+        this.lootingBonus = lootingBonus;
+    }
+
+    @Override
+    protected List<ItemStack> doApply(List<ItemStack> generatedLoot, LootContext context) {
+        if (!ConfigHandler.get().useLootModifier || !context.has(LootParameters.DAMAGE_SOURCE)) return generatedLoot;
+        Entity dead = context.get(LootParameters.THIS_ENTITY);
+        if (!(dead instanceof LivingEntity) || dead instanceof PlayerEntity) return generatedLoot;
+        LivingEntity entity = (LivingEntity) dead;
+        long start = System.nanoTime();
+        entity.world.getProfiler().startSection("bhc_drops");
+        BHCMetrics.DROP_EVENTS.increment();
+        Entity killer = context.get(LootParameters.KILLER_ENTITY);
+        double bonus = killer instanceof LivingEntity ? lootingBonus * EnchantmentHelper.getLootingModifier((LivingEntity) killer) : 0.0D;
+        DropHandler.Drop out = (e, item, offsetY) -> generatedLoot.add(new ItemStack(item));
+        DropTable.Entry imported = importDropsJson ? DropConfigLoader.get().table.get(entity) : null;
+        DropTable.Entry own = entries.get(entity);
+        int rolled = 0;
+        if (imported != null) rolled += DropHandler.roll(imported, entity, killer, bonus, out);
+        rolled += DropHandler.roll(own, entity, killer, bonus, out);
+        if ((imported != null && !imported.isEmpty()) || !own.isEmpty()) DropHandler.countDeath(rolled);
+        entity.world.getProfiler().endSection();
+        BHCMetrics.DROP_TIME.record(System.nanoTime() - start);
+        return generatedLoot;
+    }
+
+    public static class Serializer extends GlobalLootModifierSerializer<HeartLootModifier> {
+
+        @Override
+        public HeartLootModifier read(ResourceLocation location, JsonObject object, ILootCondition[] conditions) {
+            BHCConfig config = new BHCConfig();
+            if (object.has("entries")) {
+                for (Map.Entry<String, JsonElement> type : JSONUtils.getJsonObject(object, "entries").entrySet()) {
+                    for (Map.Entry<String, JsonElement> entry : JSONUtils.getJsonObject(type.getValue(), type.getKey()).entrySet()) {
+                        config.addEntrytoMap(type.getKey(), entry.getKey(), JSONUtils.getFloat(entry.getValue(), entry.getKey()));
+                    }
+                }
+            }
+            config.validate();
+            return new HeartLootModifier(conditions,
+                    JSONUtils.getBoolean(object, "import_drops_json", true),
+                    DropTable.compile(config.freeze()),
+                    JSONUtils.getFloat(object, "looting_bonus", 0.0F));
+        }
+    }
+}
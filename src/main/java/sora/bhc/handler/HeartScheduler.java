@@ -0,0 +1,116 @@
+package sora.bhc.handler;
+
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.server.MinecraftServer;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.event.server.FMLServerStoppedEvent;
+import net.minecraftforge.fml.server.ServerLifecycleHooks;
+import sora.bhc.Reference;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Runs the recurring per-player heart work on a timing wheel. Players are spread over the interval by their UUID so
+ * they don't all land on the same tick, and the interval grows while the server is over its tick budget and shrinks
+ * back once there is headroom again.
+ */
+@Mod.EventBusSubscriber(modid = Reference.MODID)
+public class HeartScheduler {
+
+    private static final int WHEEL_SIZE = 4096;
+    private static final int MAX_STRETCH = 8;
+    private static final int ADAPT_EVERY = 20;
+
+    @SuppressWarnings("unchecked")
+    private static final List<UUID>[] wheel = new List[WHEEL_SIZE];
+    private static final Object2LongMap<UUID> due = new Object2LongOpenHashMap<>();
+    private static long tick;
+    private static int interval;
+
+    @SubscribeEvent
+    public static void onLogin(PlayerEvent.PlayerLoggedInEvent event) {
+        int base = ConfigHandler.get().healthCheckInterval;
+        if (base <= 0) return;
+        if (interval == 0) interval = Math.min(base, WHEEL_SIZE);
+        scheduleFirst(event.getPlayer().getUniqueID());
+    }
+
+    @SubscribeEvent
+    public static void onLogout(PlayerEvent.PlayerLoggedOutEvent event) {
+        due.removeLong(event.getPlayer().getUniqueID());
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) return;
+        tick++;
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (tick % ADAPT_EVERY == 0) adapt(server);
+        List<UUID> bucket = wheel[(int) (tick % WHEEL_SIZE)];
+        if (bucket == null || bucket.isEmpty()) return;
+        wheel[(int) (tick % WHEEL_SIZE)] = null;
+        for (UUID id : bucket) {
+            if (!due.containsKey(id) || due.getLong(id) != tick) continue; //rescheduled or logged out
+            ServerPlayerEntity player = server.getPlayerList().getPlayerByUUID(id);
+            if (player == null) {
+                due.removeLong(id);
+                continue;
+            }
+            HealthHandler.invalidate(player);
+            if (interval > 0) schedule(id, interval);
+            else due.removeLong(id);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(FMLServerStoppedEvent event) {
+        for (int i = 0; i < wheel.length; i++) wheel[i] = null;
+        due.clear();
+        interval = 0;
+    }
+
+    /**
+     * puts a player on the wheel at an offset within the interval derived from their UUID
+     */
+    private static void scheduleFirst(UUID id) {
+        schedule(id, 1 + Math.floorMod(id.hashCode(), interval));
+    }
+
+    private static void schedule(UUID id, int delay) {
+        long at = tick + Math.max(1, Math.min(delay, WHEEL_SIZE - 1));
+        int slot = (int) (at % WHEEL_SIZE);
+        if (wheel[slot] == null) wheel[slot] = new ArrayList<>();
+        wheel[slot].add(id);
+        due.put(id, at);
+    }
+
+    private static void adapt(MinecraftServer server) {
+        int base = ConfigHandler.get().healthCheckInterval;
+        if (base <= 0) {
+            interval = 0;
+            return;
+        }
+        long total = 0;
+        for (long time : server.tickTimeArray) total += time;
+        double averageMs = total / (double) server.tickTimeArray.length / 1.0E6D;
+        double budget = ConfigHandler.get().tickBudgetMs;
+        int min = Math.min(base, WHEEL_SIZE - 1);
+        int max = Math.min(base * MAX_STRETCH, WHEEL_SIZE - 1);
+        boolean idle = interval == 0;
+        if (averageMs > budget) interval = Math.min(Math.max(interval, min) * 2, max);
+        else if (averageMs < budget * 0.5D) interval = Math.max(interval / 2, min);
+        else interval = Math.max(interval, min);
+        if (idle) { //the checks were disabled, so players already online were never scheduled
+            for (ServerPlayerEntity player : server.getPlayerList().getPlayers()) {
+                if (!due.containsKey(player.getUniqueID())) scheduleFirst(player.getUniqueID());
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package sora.bhc.handler;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.fml.loading.FMLPaths;
+import sora.bhc.BaubleyHeartCanisters;
+import sora.bhc.Reference;
+import sora.bhc.util.HeartType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the heart types from config/bhc/hearts.json, writing the four original types first if there is none. The
+ * types become items, so the file is read once when the first {@link HeartType} is needed and has to match between
+ * server and clients; models and translations of added types come from a resource pack. The order of the types is
+ * part of the save format, worlds only start if it still begins with the types they were saved with, see
+ * {@link HeartTypeOrder}.
+ */
+public class HeartTypeLoader {
+
+    private static final Pattern NAME = Pattern.compile("[a-z0-9_]+");
+
+    public static Path getFile() {
+        return FMLPaths.CONFIGDIR.get().resolve("bhc").resolve("hearts.json");
+    }
+
+    /**
+     * @throws IllegalStateException if the file can't be read or is invalid, registering other items than the world
+     * was saved with would remove them from it
+     */
+    public static HeartType[] load() {
+        Path file = getFile();
+        try {
+            if (!Files.exists(file)) writeDefault(file);
+            HeartType[] types;
+            try (JsonReader reader = new JsonReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+                types = read(reader);
+            }
+            BaubleyHeartCanisters.LOGGER.info("Loaded {} heart types from {}", types.length, file);
+            return types;
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Failed to load heart types from " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static HeartType[] read(JsonReader reader) throws IOException {
+        List<HeartType> types = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        Set<String> categories = new HashSet<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!reader.nextName().equals("types")) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginArray();
+            while (reader.hasNext()) {
+                HeartType type = readType(reader, types.size());
+                if (!names.add(type.name)) throw new IllegalStateException("duplicate heart type " + type.name);
+                if (!categories.add(type.dropCategory)) throw new IllegalStateException("duplicate drop category " + type.dropCategory);
+                types.add(type);
+            }
+            reader.endArray();
+        }
+        reader.endObject();
+        if (types.isEmpty()) throw new IllegalStateException("no heart types");
+        if (types.size() > HeartType.MAX_TYPES) throw new IllegalStateException("at most " + HeartType.MAX_TYPES + " heart types are supported, found " + types.size());
+        return types.toArray(new HeartType[0]);
+    }
+
+    private static HeartType readType(JsonReader reader, int index) throws IOException {
+        String name = null, dropCategory = null, texture = null;
+        int healAmount = 0, cap = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "name":
+                    name = reader.nextString();
+                    break;
+                case "healAmount":
+                    healAmount = reader.nextInt();
+                    break;
+                case "cap":
+                    cap = reader.nextInt();
+                    break;
+                case "dropCategory":
+                    dropCategory = reader.nextString();
+                    break;
+                case "texture":
+                    texture = reader.nextString();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (name == null || !NAME.matcher(name).matches()) throw new IllegalStateException("heart type " + index + " needs a name of lower case letters, digits and underscores, was " + name);
+        if (healAmount <= 0) throw new IllegalStateException("healAmount of heart type " + name + " must be positive, was " + healAmount);
+        if (cap < 0 || cap > 64) throw new IllegalStateException("cap of heart type " + name + " must be between 0 and 64, was " + cap);
+        ResourceLocation textureId = texture != null ? ResourceLocation.tryCreate(texture) : new ResourceLocation(Reference.MODID, "textures/items/" + name + "_heart.png");
+        if (textureId == null) throw new IllegalStateException("invalid texture for heart type " + name + ": " + texture);
+        return new HeartType(index, name, healAmount, cap, dropCategory != null ? dropCategory : name, textureId);
+    }
+
+    /**
+     * writes the default hearts.json to a temporary file first and moves it into place, like drops.json
+     */
+    private static void writeDefault(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), "hearts", ".json.tmp");
+        try {
+            try (JsonWriter writer = new JsonWriter(Files.newBufferedWriter(temp, StandardCharsets.UTF_8))) {
+                writer.setIndent("  ");
+                writer.beginObject();
+                writer.name("_comment").value("Hearts are saved by their position in this list: add new types at the end, never reorder or remove them");
+                writer.name("types").beginArray();
+                writeType(writer, "red", 10);
+                writeType(writer, "yellow", 20);
+                writeType(writer, "green", 30);
+                writeType(writer, "blue", 40);
+                writer.endArray().endObject();
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void writeType(JsonWriter writer, String name, int healAmount) throws IOException {
+        writer.beginObject();
+        writer.name("name").value(name);
+        writer.name("healAmount").value(healAmount);
+        writer.name("cap").value(0);
+        writer.name("dropCategory").value(name);
+        writer.name("texture").value(Reference.MODID + ":textures/items/" + name + "_heart.png");
+        writer.endObject();
+    }
+}
@@ -0,0 +1,74 @@
+package sora.bhc.handler;
+
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.ListNBT;
+import net.minecraft.nbt.StringNBT;
+import net.minecraft.world.dimension.DimensionType;
+import net.minecraft.world.storage.WorldSavedData;
+import net.minecraftforge.common.util.Constants;
+import net.minecraftforge.eventbus.api.EventPriority;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.event.server.FMLServerStartingEvent;
+import sora.bhc.BaubleyHeartCanisters;
+import sora.bhc.Reference;
+import sora.bhc.util.HeartType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The heart type names of hearts.json in the order the world was last started with, stored with the overworld.
+ * Pendants keep one byte per type index and the event journal records indices, so neither can be remapped by name:
+ * starting a world whose types were reordered or removed fails instead of silently moving hearts to other types.
+ * Types added at the end are recorded and accepted.
+ */
+@Mod.EventBusSubscriber(modid = Reference.MODID)
+public class HeartTypeOrder extends WorldSavedData {
+
+    public static final String NAME = Reference.MODID + "_heart_types";
+
+    private final List<String> names = new ArrayList<>();
+
+    public HeartTypeOrder() {
+        super(NAME);
+    }
+
+    @SubscribeEvent(priority = EventPriority.HIGHEST)
+    public static void onServerStarting(FMLServerStartingEvent event) {
+        event.getServer().getWorld(DimensionType.OVERWORLD).getSavedData().getOrCreate(HeartTypeOrder::new, NAME).check();
+    }
+
+    /**
+     * @throws IllegalStateException if the saved types are not the first ones of hearts.json, in the same order
+     */
+    private void check() {
+        HeartType[] types = HeartType.values();
+        for (int i = 0; i < names.size(); i++) {
+            if (i < types.length && types[i].name.equals(names.get(i))) continue;
+            String message = String.format("%s lists the heart types %s, but this world was saved with %s. Hearts are saved by their position in that file, "
+                    + "restore the old order and only add new types at the end", HeartTypeLoader.getFile(), Arrays.toString(types), names);
+            BaubleyHeartCanisters.LOGGER.error(message);
+            throw new IllegalStateException(message);
+        }
+        if (names.size() == types.length) return;
+        for (int i = names.size(); i < types.length; i++) names.add(types[i].name);
+        markDirty();
+    }
+
+    @Override
+    public void read(CompoundNBT nbt) {
+        names.clear();
+        ListNBT list = nbt.getList("types", Constants.NBT.TAG_STRING);
+        for (int i = 0; i < list.size(); i++) names.add(list.getString(i));
+    }
+
+    @Override
+    public CompoundNBT write(CompoundNBT nbt) {
+        ListNBT list = new ListNBT();
+        for (String name : names) list.add(StringNBT.valueOf(name));
+        nbt.put("types", list);
+        return nbt;
+    }
+}
@@ -0,0 +1,315 @@
+package sora.bhc.handler;
+
+import com.mojang.authlib.GameProfile;
+import net.minecraft.command.CommandSource;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.item.ItemEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.DamageSource;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.util.text.StringTextComponent;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.common.util.FakePlayer;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.living.LivingDropsEvent;
+import net.minecraftforge.eventbus.api.EventPriority;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.event.server.FMLServerStoppingEvent;
+import sora.bhc.BaubleyHeartCanisters;
+import sora.bhc.Reference;
+import sora.bhc.capability.HeartLedger;
+import sora.bhc.container.HeartPendantContainer;
+import sora.bhc.core.PendantCodec;
+import sora.bhc.init.ModItems;
+import sora.bhc.network.HeartSync;
+import sora.bhc.util.InventoryUtil;
+import top.theillusivec4.curios.api.CuriosAPI;
+import top.theillusivec4.curios.api.inventory.CurioStackHandler;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Synthetic load for {@code /bhc bench}: entity deaths are posted through the real {@link LivingDropsEvent} path
+ * and fake players get their health recomputed, at a fixed rate for a fixed time. Whole server ticks are measured
+ * for an idle baseline window first and then under load, so the cost of the drops, item entities and health updates
+ * shows up wherever in the tick it lands; results are written to a CSV file under the run directory. The fake
+ * players and the items the bench dropped are removed once it ends.
+ */
+@Mod.EventBusSubscriber(modid = Reference.MODID)
+public class LoadSimulator {
+
+    private static final EntityType<?>[] VICTIMS = {EntityType.ZOMBIE, EntityType.SKELETON, EntityType.CREEPER, EntityType.SPIDER, EntityType.WITHER_SKELETON, EntityType.PIG, EntityType.COW};
+
+    private static final int BASELINE_TICKS = 100;
+    private static final int CLEANUP_TICKS = 100;
+
+    private static Run current;
+
+    public static boolean isRunning() {
+        return current != null;
+    }
+
+    public static void start(CommandSource source, int deathsPerMinute, int players, int healthUpdatesPerMinute, int seconds) {
+        current = new Run(source, deathsPerMinute, players, healthUpdatesPerMinute, seconds * 20);
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (current == null || event.phase != TickEvent.Phase.START) return;
+        Run run = current;
+        if (run.finished) {
+            if (run.sweep() > 0) run.cleanup = CLEANUP_TICKS;
+            else if (--run.cleanup <= 0) {
+                current = null;
+                run.dispose();
+            }
+            return;
+        }
+        // tickTimeArray holds the tick that just completed up to its END handlers, which are timed separately
+        if (run.tick > 0) {
+            MinecraftServer server = run.source.getServer();
+            run.tickNanos[run.measured++] = server.tickTimeArray[server.getTickCounter() % 100] + run.endNanos;
+        }
+        if (run.tick >= run.tickNanos.length) {
+            run.finish();
+            return;
+        }
+        int deaths = 0, updates = 0;
+        long nanos = 0, bytes = 0;
+        if (run.tick >= BASELINE_TICKS) {
+            long allocated = allocatedBytes();
+            long start = System.nanoTime();
+            deaths = run.deaths.next();
+            for (int i = 0; i < deaths; i++) run.killOne();
+            updates = run.updates.next();
+            for (int i = 0; i < updates; i++) run.updateOne();
+            nanos = System.nanoTime() - start;
+            bytes = allocatedBytes() - allocated;
+        }
+        run.record(deaths, updates, nanos, bytes);
+    }
+
+    @SubscribeEvent(priority = EventPriority.HIGHEST)
+    public static void onTickEndFirst(TickEvent.ServerTickEvent event) {
+        if (current != null && event.phase == TickEvent.Phase.END) current.endNanos = -System.nanoTime();
+    }
+
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onTickEndLast(TickEvent.ServerTickEvent event) {
+        if (current != null && event.phase == TickEvent.Phase.END) current.endNanos += System.nanoTime();
+    }
+
+    @SubscribeEvent
+    public static void onServerStopping(FMLServerStoppingEvent event) {
+        if (current != null) {
+            if (!current.finished) current.finish();
+            current.sweep();
+            current.dispose();
+        }
+        current = null;
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static class Rate {
+        private final double perTick;
+        private double carry;
+
+        Rate(int perMinute) {
+            this.perTick = perMinute / 1200.0D;
+        }
+
+        int next() {
+            carry += perTick;
+            int amount = (int) carry;
+            carry -= amount;
+            return amount;
+        }
+    }
+
+    private static class Run {
+        final CommandSource source;
+        final ServerWorld world;
+        final Vec3d origin;
+        final AxisAlignedBB area;
+        final Set<UUID> presentItems = new HashSet<>();
+        final Rate deaths;
+        final Rate updates;
+        final int duration;
+        final List<FakePlayer> fakePlayers = new ArrayList<>();
+        final long[] nanos;
+        final long[] tickNanos;
+        final long[] bytes;
+        final int[] deathCounts;
+        final int[] updateCounts;
+        final Random rand = new Random();
+        int tick;
+        int measured;
+        int nextPlayer;
+        long endNanos;
+        boolean finished;
+        int cleanup = CLEANUP_TICKS;
+
+        Run(CommandSource source, int deathsPerMinute, int players, int healthUpdatesPerMinute, int duration) {
+            this.source = source;
+            this.world = source.getWorld();
+            this.origin = source.getPos();
+            this.area = new AxisAlignedBB(origin.x - 18, origin.y - 16, origin.z - 18, origin.x + 18, origin.y + 8, origin.z + 18);
+            for (ItemEntity item : world.getEntitiesWithinAABB(ItemEntity.class, area)) presentItems.add(item.getUniqueID());
+            this.deaths = new Rate(deathsPerMinute);
+            this.updates = new Rate(healthUpdatesPerMinute);
+            this.duration = duration;
+            int ticks = BASELINE_TICKS + duration;
+            this.nanos = new long[ticks];
+            this.tickNanos = new long[ticks];
+            this.bytes = new long[ticks];
+            this.deathCounts = new int[ticks];
+            this.updateCounts = new int[ticks];
+            // not from FakePlayerFactory, which would keep them cached for the world's lifetime
+            for (int i = 0; i < players; i++) {
+                String name = "[bhc-bench-" + i + "]";
+                fakePlayers.add(new FakePlayer(world, new GameProfile(UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)), name)));
+            }
+        }
+
+        void killOne() {
+            EntityType<?> type = VICTIMS[rand.nextInt(VICTIMS.length)];
+            Entity created = type.create(world);
+            if (!(created instanceof LivingEntity)) return;
+            LivingEntity entity = (LivingEntity) created;
+            entity.setPosition(origin.x + rand.nextInt(32) - 16, origin.y, origin.z + rand.nextInt(32) - 16);
+            Collection<ItemEntity> drops = new ArrayList<>();
+            if (!MinecraftForge.EVENT_BUS.post(new LivingDropsEvent(entity, DamageSource.GENERIC, drops, 0, false))) {
+                for (ItemEntity drop : drops) world.addEntity(drop);
+            }
+        }
+
+        void updateOne() {
+            if (fakePlayers.isEmpty()) return;
+            FakePlayer player = fakePlayers.get(nextPlayer++ % fakePlayers.size());
+            CuriosAPI.getCuriosHandler(player).ifPresent(handler -> {
+                CurioStackHandler stacks = handler.getStackHandler("necklace");
+                if (stacks == null || stacks.getSlots() == 0) return;
+                int[] counts = new int[HeartPendantContainer.SLOTS];
+                counts[rand.nextInt(counts.length)] = 1 + rand.nextInt(ConfigHandler.get().heartStackSize);
+                ItemStack amulet = new ItemStack(ModItems.HEART_AMULET);
+                amulet.getOrCreateTag().putByteArray(InventoryUtil.HEARTS, PendantCodec.encode(counts));
+                stacks.setStackInSlot(0, amulet);
+            });
+            HeartLedger.get(player).invalidate();
+            HealthHandler.updateHealth(player);
+        }
+
+        void record(int deaths, int updates, long nanos, long bytes) {
+            this.deathCounts[tick] = deaths;
+            this.updateCounts[tick] = updates;
+            this.nanos[tick] = nanos;
+            this.bytes[tick] = bytes;
+            tick++;
+        }
+
+        /**
+         * Removes item entities in the bench area that weren't there when it started and hold one of this mod's
+         * items, including the ones {@link DropCoalescer} is still spawning from its budget.
+         */
+        int sweep() {
+            int removed = 0;
+            for (ItemEntity item : world.getEntitiesWithinAABB(ItemEntity.class, area)) {
+                if (presentItems.contains(item.getUniqueID())) continue;
+                if (!Reference.MODID.equals(item.getItem().getItem().getRegistryName().getNamespace())) continue;
+                item.remove();
+                removed++;
+            }
+            return removed;
+        }
+
+        void dispose() {
+            for (FakePlayer player : fakePlayers) HeartSync.forget(player.getUniqueID());
+            fakePlayers.clear();
+            presentItems.clear();
+        }
+
+        void finish() {
+            finished = true;
+            int loaded = Math.max(0, measured - BASELINE_TICKS);
+            long totalBytes = 0;
+            int totalDeaths = 0, totalUpdates = 0;
+            for (int i = BASELINE_TICKS; i < measured; i++) {
+                totalBytes += bytes[i];
+                totalDeaths += deathCounts[i];
+                totalUpdates += updateCounts[i];
+            }
+            long[] baseline = sorted(tickNanos, 0, Math.min(measured, BASELINE_TICKS));
+            long[] load = sorted(tickNanos, BASELINE_TICKS, measured);
+            long[] handlers = sorted(nanos, BASELINE_TICKS, measured);
+            double seconds = Math.max(1, loaded) / 20.0D;
+            String summary = String.format("bench: %d ticks, MSPT idle p50 %.3f p99 %.3f, under load p50 %.3f p90 %.3f p99 %.3f max %.3f, "
+                            + "added p50 %.3f p99 %.3f (bench handlers p50 %.3f), %.1f deaths/s, %.1f health updates/s, %.1f KB/s allocated",
+                    loaded, percentile(baseline, 0.5D), percentile(baseline, 0.99D),
+                    percentile(load, 0.5D), percentile(load, 0.9D), percentile(load, 0.99D), percentile(load, 1.0D),
+                    percentile(load, 0.5D) - percentile(baseline, 0.5D), percentile(load, 0.99D) - percentile(baseline, 0.99D),
+                    percentile(handlers, 0.5D), totalDeaths / seconds, totalUpdates / seconds, totalBytes / seconds / 1024.0D);
+            source.sendFeedback(new StringTextComponent(summary), true);
+            BaubleyHeartCanisters.LOGGER.info(summary);
+            try {
+                Path file = writeCsv();
+                source.sendFeedback(new StringTextComponent("bench: results written to " + file), false);
+            } catch (IOException e) {
+                BaubleyHeartCanisters.LOGGER.error("Unable to write bench results", e);
+            }
+        }
+
+        private Path writeCsv() throws IOException {
+            Path dir = source.getServer().getDataDirectory().toPath().resolve(Reference.MODID).resolve("bench");
+            Files.createDirectories(dir);
+            Path file = dir.resolve("bench-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".csv");
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+                writer.println("tick,phase,deaths,health_updates,tick_nanos,handler_nanos,allocated_bytes");
+                for (int i = 0; i < measured; i++) {
+                    writer.println(i + "," + (i < BASELINE_TICKS ? "idle" : "load") + "," + deathCounts[i] + "," + updateCounts[i] + ","
+                            + tickNanos[i] + "," + nanos[i] + "," + bytes[i]);
+                }
+            }
+            return file;
+        }
+
+        private static long[] sorted(long[] values, int from, int to) {
+            long[] sorted = Arrays.copyOfRange(values, from, Math.max(from, to));
+            Arrays.sort(sorted);
+            return sorted;
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) return 0;
+            int index = Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1);
+            return sorted[Math.max(0, index)] / 1.0E6D;
+        }
+    }
+}
@@ -2,11 +2,14 @@ package sora.bhc.handler;
 
 import net.minecraft.inventory.container.ContainerType;
 import net.minecraft.item.Item;
+import net.minecraft.util.Hand;
 import net.minecraftforge.common.extensions.IForgeContainerType;
+import net.minecraftforge.common.loot.GlobalLootModifierSerializer;
 import net.minecraftforge.event.RegistryEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 import sora.bhc.Reference;
+import sora.bhc.container.HeartPendantContainer;
 import sora.bhc.init.ModItems;
 
 import static net.minecraftforge.fml.common.Mod.EventBusSubscriber.Bus.MOD;
@@ -14,31 +17,31 @@ import static net.minecraftforge.fml.common.Mod.EventBusSubscriber.Bus.MOD;
 @Mod.EventBusSubscriber(bus = MOD, modid = Reference.MODID)
 public class RegistryHandler {
 
-  //public static final ContainerType<HeartPendantContainer> HEART_PENDANT = null;
-
   @SubscribeEvent
   public static void registerItems(RegistryEvent.Register<Item> event) {
+    event.getRegistry().registerAll(ModItems.HEARTS);
+    event.getRegistry().register(ModItems.CANISTER);
+    event.getRegistry().registerAll(ModItems.HEART_CANISTERS);
     event.getRegistry().registerAll(
-        ModItems.RED_HEART,
-        ModItems.YELLOW_HEART,
-        ModItems.GREEN_HEART,
-        ModItems.BLUE_HEART,
-        ModItems.CANISTER,
-        ModItems.RED_HEART_CANISTER,
-        ModItems.YELLOW_HEART_CANISTER,
-        ModItems.GREEN_HEART_CANISTER,
-        ModItems.BLUE_HEART_CANISTER,
         ModItems.RELIC_APPLE,
-        ModItems.WITHER_BONE
-       // ModItems.HEART_AMULET
+        ModItems.WITHER_BONE,
+        ModItems.HEART_AMULET
     );
   }
 
 
-  /*@SubscribeEvent
+  @SubscribeEvent
   public static void registerContainer(final RegistryEvent.Register<ContainerType<?>> event){
-    event.getRegistry().register(IForgeContainerType.create((windowId, inv, data) -> {
-      return new HeartPendantContainer(windowId);
-    }));
-  } */
+    ModItems.HEART_PENDANT_CONTAINER = IForgeContainerType.create((windowId, inv, data) -> {
+      Hand hand = data.readEnumValue(Hand.class);
+      return new HeartPendantContainer(windowId, inv.player.getHeldItem(hand), inv, hand);
+    });
+    ModItems.HEART_PENDANT_CONTAINER.setRegistryName(Reference.MODID, "heart_pendant");
+    event.getRegistry().register(ModItems.HEART_PENDANT_CONTAINER);
+  }
+
+  @SubscribeEvent
+  public static void registerLootModifiers(final RegistryEvent.Register<GlobalLootModifierSerializer<?>> event){
+    event.getRegistry().register(new HeartLootModifier.Serializer().setRegistryName(Reference.MODID, "heart_drops"));
+  }
 }
@@ -1,27 +1,54 @@
-//package sora.bhc.handler;
-//
-//import sora.bhc.Reference;
-//import net.minecraft.entity.SharedMonsterAttributes;
-//import net.minecraft.entity.player.EntityPlayer;
-//import net.minecraftforge.common.util.FakePlayer;
-//import net.minecraftforge.event.entity.EntityJoinWorldEvent;
-//import net.minecraftforge.fml.common.Mod;
-//import net.minecraftforge.fml.common.eventhandler.EventPriority;
-//import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
-//
-//
-//@Mod.EventBusSubscriber(modid = Reference.MODID)
-//public class StartingHealthHandler {
-//
-//    @SubscribeEvent(priority = EventPriority.LOWEST)
-//    public static void setStartingHealth(EntityJoinWorldEvent event) {
-//        if (OLDCONFIG.allowStartingHealthTweaks) {
-//            if (event.getEntity() instanceof EntityPlayer && !(event.getEntity() instanceof FakePlayer)) {
-//                EntityPlayer player = (EntityPlayer) event.getEntity();
-//                if (OLDCONFIG.startingHealth > 0) {
-//                    player.getEntityAttribute(SharedMonsterAttributes.MAX_HEALTH).setBaseValue(OLDCONFIG.startingHealth);
-//                }
-//            }
-//        }
-//    }
-//}
+package sora.bhc.handler;
+
+import net.minecraft.entity.SharedMonsterAttributes;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraftforge.common.util.Constants;
+import net.minecraftforge.common.util.FakePlayer;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import sora.bhc.Reference;
+
+/**
+ * Sets the base max health of a player to {@code startingHealth} the first time they log in. The applied value is
+ * stored on the player and carried over on clone, so respawning restores it without reading the config again and no
+ * handler has to look at every entity joining a world.
+ */
+@Mod.EventBusSubscriber(modid = Reference.MODID)
+public class StartingHealthHandler {
+
+    private static final String STARTING_HEALTH = Reference.MODID + ":starting_health";
+
+    @SubscribeEvent
+    public static void onLogin(PlayerEvent.PlayerLoggedInEvent event) {
+        PlayerEntity player = event.getPlayer();
+        if (!(player instanceof ServerPlayerEntity) || player instanceof FakePlayer) return;
+        CompoundNBT data = player.getPersistentData();
+        if (data.contains(STARTING_HEALTH, Constants.NBT.TAG_INT)) return; //already initialized, the base value is saved with the player
+        ConfigHandler.Snapshot config = ConfigHandler.get();
+        if (!config.allowStartingHealthTweaks || config.startingHealth <= 0) return;
+        data.putInt(STARTING_HEALTH, config.startingHealth);
+        apply(player, config.startingHealth);
+    }
+
+    @SubscribeEvent
+    public static void onClone(PlayerEvent.Clone event) {
+        CompoundNBT original = event.getOriginal().getPersistentData();
+        if (original.contains(STARTING_HEALTH, Constants.NBT.TAG_INT)) event.getPlayer().getPersistentData().putInt(STARTING_HEALTH, original.getInt(STARTING_HEALTH));
+    }
+
+    @SubscribeEvent
+    public static void onRespawn(PlayerEvent.PlayerRespawnEvent event) {
+        PlayerEntity player = event.getPlayer();
+        CompoundNBT data = player.getPersistentData();
+        if (data.contains(STARTING_HEALTH, Constants.NBT.TAG_INT)) apply(player, data.getInt(STARTING_HEALTH)); //a new player entity starts with the default attributes
+    }
+
+    private static void apply(PlayerEntity player, int startingHealth) {
+        player.getAttribute(SharedMonsterAttributes.MAX_HEALTH).setBaseValue(startingHealth);
+        player.setHealth(player.getMaxHealth());
+        HealthHandler.markDirty(player);
+    }
+}
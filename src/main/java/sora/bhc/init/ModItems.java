@@ -2,8 +2,10 @@ package sora.bhc.init;
 
 import net.minecraft.inventory.container.ContainerType;
 import net.minecraft.item.Item;
+import sora.bhc.container.HeartPendantContainer;
 import sora.bhc.items.BaseHeartCanister;
 import sora.bhc.items.BaseItem;
+import sora.bhc.items.ItemHeartAmulet;
 import sora.bhc.items.consumables.BaseHeartItem;
 import sora.bhc.items.consumables.ItemFoodRelicApple;
 import sora.bhc.util.HeartType;
@@ -11,19 +13,21 @@ import sora.bhc.util.HeartType;
 
 public class ModItems {
 
-    public static  Item RED_HEART_CANISTER = new BaseHeartCanister("red_heart_canister",HeartType.RED);
-    public static  Item YELLOW_HEART_CANISTER = new BaseHeartCanister("yellow_heart_canister",HeartType.YELLOW);
-    public static  Item GREEN_HEART_CANISTER = new BaseHeartCanister("green_heart_canister",HeartType.GREEN);
-    public static  Item BLUE_HEART_CANISTER = new BaseHeartCanister("blue_heart_canister",HeartType.BLUE);
+    /** heart canister of each {@link HeartType}, by index */
+    public static  Item[] HEART_CANISTERS = new Item[HeartType.count()];
+    /** consumable heart of each {@link HeartType}, by index */
+    public static  Item[] HEARTS = new Item[HeartType.count()];
     public static  Item WITHER_BONE = new BaseItem("wither_bone", new Item.Properties());
     public static  Item CANISTER = new BaseItem("canister",new Item.Properties());
     public static  Item RELIC_APPLE = new ItemFoodRelicApple();
-   // public static BaseItem HEART_AMULET = new ItemHeartAmulet();
-    //public static ContainerType<HeartPendantContainer> HEART_PENANT_CONTAINER;
+    public static  Item HEART_AMULET = new ItemHeartAmulet();
+    public static ContainerType<HeartPendantContainer> HEART_PENDANT_CONTAINER;
 
-    public static  Item RED_HEART = new BaseHeartItem("red_heart",HeartType.RED);
-    public static  Item YELLOW_HEART = new BaseHeartItem("yellow_heart",HeartType.YELLOW);
-    public static  Item GREEN_HEART = new BaseHeartItem("green_heart",HeartType.GREEN);
-    public static  Item BLUE_HEART = new BaseHeartItem("blue_heart",HeartType.BLUE);
+    static {
+        for (HeartType type : HeartType.values()) {
+            HEARTS[type.index] = new BaseHeartItem(type.name + "_heart", type);
+            HEART_CANISTERS[type.index] = new BaseHeartCanister(type.name + "_heart_canister", type);
+        }
+    }
 
 }
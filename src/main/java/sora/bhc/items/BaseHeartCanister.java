@@ -30,7 +30,7 @@ public class BaseHeartCanister extends BaseItem {
 */
     @Override
     public int getItemStackLimit(ItemStack stack) {
-        return ConfigHandler.general.heartStackSize.get();
+        return type.getLimit(ConfigHandler.get().heartStackSize);
     }
 }
 
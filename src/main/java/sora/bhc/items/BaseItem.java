@@ -7,7 +7,7 @@ import sora.bhc.util.BaubleyHeartCanistersCreativeTab;
 
 public class BaseItem extends Item {
     public BaseItem(String name, Properties properties){
-        super(new Properties().group(BaubleyHeartCanistersCreativeTab.getInstance()));
+        super(properties.group(BaubleyHeartCanistersCreativeTab.getInstance()));
         this.setRegistryName(new ResourceLocation(BaubleyHeartCanisters.MODID, name));
     }
 }
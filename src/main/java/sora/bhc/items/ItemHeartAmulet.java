@@ -1,103 +1,54 @@
-//package sora.bhc.items;
-//
-//import baubles.api.BaubleType;
-//import baubles.api.IBauble;
-//import net.minecraft.entity.player.EntityPlayer;
-//import net.minecraft.item.ItemStack;
-//import net.minecraft.nbt.NBTTagCompound;
-//import net.minecraft.util.ActionResult;
-//import net.minecraft.util.EnumActionResult;
-//import net.minecraft.util.EnumHand;
-//import net.minecraft.world.World;
-//import net.minecraftforge.common.util.Constants;
-//import sora.bhc.BaubleyHeartCanisters;
-//import sora.bhc.container.HeartPendantContainer;
-//import sora.bhc.handler.OLDCONFIG;
-//import sora.bhc.util.BHCGuiHandler;
-//import sora.bhc.util.HeartType;
-//import top.theillusivec4.curios.api.capability.ICurio;
-//import top.theillusivec4.curios.api.capability.ICurioItemHandler;
-//
-//import javax.annotation.Nonnull;
-//
-//public class ItemHeartAmulet extends BaseItem implements ICurioItemHandler {
-//    public ItemHeartAmulet() {
-//        super("heart_amulet");
-//        this.setMaxStackSize(1);
-//    }
-//
-//    @Override
-//    public BaubleType getBaubleType(ItemStack itemstack) {
-//        return OLDCONFIG.heartCanisterBaubleType;
-//    }
-///*
-//    @Override
-//    public ActionResult<ItemStack> onItemRightClick(World worldIn, EntityPlayer playerIn, EnumHand handIn) {
-//        if(playerIn.isSneaking()) { //sneak to open inventory, (regular right click to equip?)
-//            ItemStack stack = playerIn.getHeldItem(handIn);
-//            if(!worldIn.isRemote) playerIn.openGui(BaubleyHeartCanisters.INSTANCE, BHCGuiHandler.PENDANT_GUI, worldIn, handIn.ordinal(), 0, 0);
-//            return new ActionResult<>(EnumActionResult.SUCCESS, stack);
-//        }
-//        else return super.onItemRightClick(worldIn, playerIn, handIn);
-//    } */
-//
-//    @Nonnull
-//    @Override
-//    public ActionResult<ItemStack> onItemRightClick(World world, EntityPlayer player, @Nonnull EnumHand hand) {
-//        ItemStack stack = player.getHeldItem(hand);
-//
-//        ItemStack toEquip = stack.copy();
-//        toEquip.setCount(1);
-//
-//        if(player.isSneaking()) { //sneak to open inventory, (regular right click to equip?)
-//            if(!world.isRemote) player.openGui(BaubleyHeartCanisters.INSTANCE, BHCGuiHandler.PENDANT_GUI, world, hand.ordinal(), 0, 0);
-//            return new ActionResult<>(EnumActionResult.SUCCESS, stack);
-//        }
-////Code from Botania Thank you Vazkii
-//
-//      /* if(canEquip(toEquip, player)) {
-//            if(world.isRemote)
-//                return ActionResult.newResult(EnumActionResult.SUCCESS, stack);
-//
-//            IBaublesItemHandler baubles = BaublesApi.getBaublesHandler(player);
-//            for(int i = 0; i < baubles.getSlots(); i++) {
-//                if(baubles.isItemValidForSlot(i, toEquip, player)) {
-//                    ItemStack stackInSlot = baubles.getStackInSlot(i);
-//                    if(stackInSlot.isEmpty() || ((IBauble) stackInSlot.getItem()).canUnequip(stackInSlot, player)) {
-//                        baubles.setStackInSlot(i, ItemStack.EMPTY);
-//
-//                        baubles.setStackInSlot(i, toEquip);
-//                        ((IBauble) toEquip.getItem()).onEquipped(toEquip, player);
-//
-//                        stack.shrink(1);
-//                        player.world.playSound(null, player.getPosition(), SoundEvents.ITEM_ARMOR_EQUIP_CHAIN, SoundCategory.PLAYERS, 0.5F, 1.0F );
-//
-//                        if(!stackInSlot.isEmpty()) {
-//                            ((IBauble) stackInSlot.getItem()).onUnequipped(stackInSlot, player);
-//
-//                            if(stack.isEmpty()) {
-//                                return ActionResult.newResult(EnumActionResult.SUCCESS, stackInSlot);
-//                            } else {
-//                                ItemHandlerHelper.giveItemToPlayer(player, stackInSlot);
-//                            }
-//                        }
-//
-//                        return ActionResult.newResult(EnumActionResult.SUCCESS, stack);
-//                    }
-//                }
-//            }
-//        }*/
-//
-//        return ActionResult.newResult(EnumActionResult.PASS, stack);
-//    }
-//
-//
-//    public int[] getHeartCount(ItemStack stack) {
-//        if(stack.hasTagCompound()) {
-//            NBTTagCompound nbt = stack.getTagCompound();
-//            if(nbt.hasKey(HeartPendantContainer.HEART_AMOUNT, Constants.NBT.TAG_INT_ARRAY)) return nbt.getIntArray(HeartPendantContainer.HEART_AMOUNT);
-//        }
-//        return new int[HeartType.values().length];
-//    }
-//
-//}
+package sora.bhc.items;
+
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.inventory.container.SimpleNamedContainerProvider;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.util.ActionResult;
+import net.minecraft.util.ActionResultType;
+import net.minecraft.util.Hand;
+import net.minecraft.util.text.TranslationTextComponent;
+import net.minecraft.world.World;
+import net.minecraftforge.common.capabilities.ICapabilityProvider;
+import net.minecraftforge.fml.network.NetworkHooks;
+import sora.bhc.capability.HeartSummary;
+import sora.bhc.container.HeartPendantContainer;
+import sora.bhc.util.HeartType;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+public class ItemHeartAmulet extends BaseItem {
+    public ItemHeartAmulet() {
+        super("heart_amulet", new Properties().maxStackSize(1));
+    }
+
+    @Nonnull
+    @Override
+    public ActionResult<ItemStack> onItemRightClick(World world, PlayerEntity player, @Nonnull Hand hand) {
+        ItemStack stack = player.getHeldItem(hand);
+        if(player.isSneaking()) { //sneak to open inventory, (regular right click to equip?)
+            if(!world.isRemote) {
+                NetworkHooks.openGui((ServerPlayerEntity) player, new SimpleNamedContainerProvider(
+                        (windowId, inventory, p) -> new HeartPendantContainer(windowId, stack, inventory, hand),
+                        new TranslationTextComponent("container.bhc.heart_pendant")), buf -> buf.writeEnumValue(hand));
+            }
+            return new ActionResult<>(ActionResultType.SUCCESS, stack);
+        }
+        return new ActionResult<>(ActionResultType.PASS, stack);
+    }
+
+    @Nullable
+    @Override
+    public ICapabilityProvider initCapabilities(ItemStack stack, @Nullable CompoundNBT nbt) {
+        return new HeartSummary.Provider(stack);
+    }
+
+    public int[] getHeartCount(ItemStack stack) {
+        int[] hearts = new int[HeartType.count()];
+        HeartSummary.get(stack).addTo(hearts);
+        return hearts;
+    }
+
+}
@@ -7,10 +7,17 @@ import net.minecraft.item.UseAction;
 import net.minecraft.util.ActionResult;
 import net.minecraft.util.ActionResultType;
 import net.minecraft.util.Hand;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.World;
+import sora.bhc.advancements.HeartItemTrigger;
+import sora.bhc.advancements.ModTriggers;
+import sora.bhc.core.HeartMath;
+import sora.bhc.handler.AuditJournal;
 import sora.bhc.items.BaseItem;
 import sora.bhc.util.HeartType;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 
 public class BaseHeartItem extends BaseItem {
@@ -42,10 +49,53 @@ public class BaseHeartItem extends BaseItem {
     public ItemStack onItemUseFinish(ItemStack stack, World worldIn, LivingEntity entityLiving) {
         if(!worldIn.isRemote && entityLiving instanceof PlayerEntity){
             PlayerEntity player = (PlayerEntity) entityLiving;
+            if(player.isSneaking()) {
+                eatToFullHealth(stack, player);
+                return stack;
+            }
             player.heal(this.type.healAmount);
-            System.out.println(type.healAmount);
+            ModTriggers.trigger(player, stack, HeartItemTrigger.Action.CONSUME);
+            AuditJournal.consume(player, type, 1);
             if(!player.isCreative())stack.shrink(1);
         }
         return stack;
     }
+
+    /**
+     * eats the mix of hearts from the player's inventory that restores the missing health with the least overheal,
+     * as one heal and at most one shrink per stack; hearts from the held stack are used before other stacks of its type
+     */
+    private static void eatToFullHealth(ItemStack held, PlayerEntity player) {
+        int missing = MathHelper.ceil(player.getMaxHealth() - player.getHealth());
+        if(missing <= 0) return;
+        HeartType[] types = HeartType.values();
+        List<ItemStack> stacks = new ArrayList<>();
+        stacks.add(held);
+        for(int slot = 0; slot < player.inventory.getSizeInventory(); slot++) {
+            ItemStack slotStack = player.inventory.getStackInSlot(slot);
+            if(slotStack != held && slotStack.getItem() instanceof BaseHeartItem) stacks.add(slotStack);
+        }
+        int[] heal = new int[types.length];
+        int[] available = new int[types.length];
+        for(HeartType heartType : types) heal[heartType.index] = heartType.healAmount;
+        for(ItemStack heartStack : stacks) available[((BaseHeartItem) heartStack.getItem()).type.index] += heartStack.getCount();
+        int[] plan = HeartMath.planHeal(missing, heal, available);
+        int healed = 0;
+        for(int i = 0; i < plan.length; i++) healed += plan[i] * heal[i];
+        if(healed == 0) return;
+        player.heal(healed);
+        ModTriggers.trigger(player, held, HeartItemTrigger.Action.CONSUME);
+        for(HeartType heartType : types) {
+            if(plan[heartType.index] > 0) AuditJournal.consume(player, heartType, plan[heartType.index]);
+        }
+        if(player.isCreative()) return;
+        for(ItemStack heartStack : stacks) {
+            int index = ((BaseHeartItem) heartStack.getItem()).type.index;
+            int eaten = Math.min(plan[index], heartStack.getCount());
+            if(eaten > 0) {
+                heartStack.shrink(eaten);
+                plan[index] -= eaten;
+            }
+        }
+    }
 }
@@ -0,0 +1,158 @@
+package sora.bhc.metrics;
+
+import net.minecraft.entity.EntityType;
+import net.minecraft.util.ResourceLocation;
+import sora.bhc.BaubleyHeartCanisters;
+import sora.bhc.handler.DropConfigLoader;
+import sora.bhc.handler.DropTable;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of the mod's hot paths. Everything is recorded with {@link LongAdder}s and read
+ * by {@code /bhc stats} and the {@code sora.bhc:type=Stats} MBean.
+ */
+public class BHCMetrics implements BHCMetricsMXBean {
+
+    public static final LongAdder DROP_EVENTS = new LongAdder();
+    public static final LongAdder DROP_MATCHES = new LongAdder();
+    public static final LongAdder DROPS_ROLLED = new LongAdder();
+    public static final LongAdder DROPS_SUPPRESSED = new LongAdder();
+    public static final Histogram DROP_TIME = new Histogram();
+
+    public static final LongAdder HEALTH_UPDATES = new LongAdder();
+    public static final LongAdder HEALTH_SCANS = new LongAdder();
+    public static final LongAdder MODIFIER_APPLIES = new LongAdder();
+    public static final Histogram HEALTH_TIME = new Histogram();
+
+    public static final LongAdder INVENTORY_WRITES = new LongAdder();
+    public static final LongAdder INVENTORY_BYTES = new LongAdder();
+
+    public static final BHCMetrics INSTANCE = new BHCMetrics();
+
+    public static void registerMBean() {
+        try {
+            ObjectName name = new ObjectName("sora.bhc:type=Stats");
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, name);
+            }
+        } catch (Exception e) {
+            BaubleyHeartCanisters.LOGGER.warn("Unable to register the stats MBean", e);
+        }
+    }
+
+    /**
+     * @return one line per entity type that has drop rules and died since the last reload or reset, most deaths first
+     */
+    public static List<String> describeEntityHitRates() {
+        List<Map.Entry<EntityType<?>, DropTable.Entry>> entries = new ArrayList<>(DropConfigLoader.get().table.getResolved().entrySet());
+        entries.removeIf(entry -> entry.getValue().isEmpty());
+        entries.sort((a, b) -> Long.compare(b.getValue().deaths.sum(), a.getValue().deaths.sum()));
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<EntityType<?>, DropTable.Entry> entry : entries) {
+            ResourceLocation id = entry.getKey().getRegistryName();
+            long deaths = entry.getValue().deaths.sum();
+            long hits = entry.getValue().hits.sum();
+            lines.add(String.format("%s: %d/%d (%.2f%%)", id, hits, deaths, deaths == 0 ? 0.0D : hits * 100.0D / deaths));
+        }
+        return lines;
+    }
+
+    public static void reset() {
+        DROP_EVENTS.reset();
+        DROP_MATCHES.reset();
+        DROPS_ROLLED.reset();
+        DROPS_SUPPRESSED.reset();
+        DROP_TIME.reset();
+        HEALTH_UPDATES.reset();
+        HEALTH_SCANS.reset();
+        MODIFIER_APPLIES.reset();
+        HEALTH_TIME.reset();
+        INVENTORY_WRITES.reset();
+        INVENTORY_BYTES.reset();
+        for (DropTable.Entry entry : DropConfigLoader.get().table.getResolved().values()) {
+            entry.deaths.reset();
+            entry.hits.reset();
+        }
+    }
+
+    @Override
+    public long getDropEvents() {
+        return DROP_EVENTS.sum();
+    }
+
+    @Override
+    public long getDropMatches() {
+        return DROP_MATCHES.sum();
+    }
+
+    @Override
+    public long getDropsRolled() {
+        return DROPS_ROLLED.sum();
+    }
+
+    @Override
+    public long getDropsSuppressed() {
+        return DROPS_SUPPRESSED.sum();
+    }
+
+    @Override
+    public double getDropMeanMicros() {
+        return DROP_TIME.getMeanMicros();
+    }
+
+    @Override
+    public double getDropP99Micros() {
+        return DROP_TIME.getPercentileMicros(0.99D);
+    }
+
+    @Override
+    public long getHealthUpdates() {
+        return HEALTH_UPDATES.sum();
+    }
+
+    @Override
+    public long getHealthScans() {
+        return HEALTH_SCANS.sum();
+    }
+
+    @Override
+    public long getModifierApplies() {
+        return MODIFIER_APPLIES.sum();
+    }
+
+    @Override
+    public double getHealthMeanMicros() {
+        return HEALTH_TIME.getMeanMicros();
+    }
+
+    @Override
+    public double getHealthP99Micros() {
+        return HEALTH_TIME.getPercentileMicros(0.99D);
+    }
+
+    @Override
+    public long getInventoryWrites() {
+        return INVENTORY_WRITES.sum();
+    }
+
+    @Override
+    public long getInventoryBytes() {
+        return INVENTORY_BYTES.sum();
+    }
+
+    @Override
+    public String[] getEntityHitRates() {
+        return describeEntityHitRates().toArray(new String[0]);
+    }
+
+    @Override
+    public void resetCounters() {
+        reset();
+    }
+}
@@ -0,0 +1,34 @@
+package sora.bhc.metrics;
+
+public interface BHCMetricsMXBean {
+
+    long getDropEvents();
+
+    long getDropMatches();
+
+    long getDropsRolled();
+
+    long getDropsSuppressed();
+
+    double getDropMeanMicros();
+
+    double getDropP99Micros();
+
+    long getHealthUpdates();
+
+    long getHealthScans();
+
+    long getModifierApplies();
+
+    double getHealthMeanMicros();
+
+    double getHealthP99Micros();
+
+    long getInventoryWrites();
+
+    long getInventoryBytes();
+
+    String[] getEntityHitRates();
+
+    void resetCounters();
+}
@@ -0,0 +1,58 @@
+package sora.bhc.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with one bucket per power of two nanoseconds. Recording is a single {@link LongAdder} increment,
+ * so it never blocks the server thread; percentiles are reported as the upper bound of their bucket.
+ */
+public class Histogram {
+
+    private static final int BUCKETS = 40;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder total = new LongAdder();
+
+    public Histogram() {
+        for (int i = 0; i < BUCKETS; i++) buckets[i] = new LongAdder();
+    }
+
+    public void record(long nanos) {
+        int bucket = nanos <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+        buckets[bucket].increment();
+        total.add(nanos);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) count += bucket.sum();
+        return count;
+    }
+
+    public double getMeanMicros() {
+        long count = getCount();
+        return count == 0 ? 0.0D : total.sum() / 1000.0D / count;
+    }
+
+    /**
+     * @param p between 0 and 1
+     */
+    public double getPercentileMicros(double p) {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) count += counts[i] = buckets[i].sum();
+        if (count == 0) return 0.0D;
+        long rank = (long) Math.ceil(p * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return (1L << i) / 1000.0D;
+        }
+        return (1L << (BUCKETS - 1)) / 1000.0D;
+    }
+
+    public void reset() {
+        for (LongAdder bucket : buckets) bucket.reset();
+        total.reset();
+    }
+}
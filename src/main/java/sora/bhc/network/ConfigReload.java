@@ -0,0 +1,22 @@
+package sora.bhc.network;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraftforge.fml.network.PacketDistributor;
+import net.minecraftforge.fml.server.ServerLifecycleHooks;
+import sora.bhc.handler.ConfigHandler;
+
+/**
+ * Forge sends the server config to every client at login, but not again when the file is changed while the server
+ * runs; this pushes the gameplay values after such a reload, so clients keep predicting the same stack limits.
+ */
+public class ConfigReload {
+
+    /**
+     * sends the current values to everyone online, on the server thread as reloads are detected on the config watcher
+     */
+    public static void sendToAll() {
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (server == null) return;
+        server.execute(() -> PacketHandler.CHANNEL.send(PacketDistributor.ALL.noArg(), new ConfigReloadMessage(ConfigHandler.get())));
+    }
+}
@@ -0,0 +1,48 @@
+package sora.bhc.network;
+
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.fml.network.NetworkEvent;
+import sora.bhc.handler.ConfigHandler;
+
+import java.util.function.Supplier;
+
+/**
+ * The server's gameplay config values after the server config was reloaded.
+ */
+public class ConfigReloadMessage {
+
+    private final int heartStackSize;
+    private final double boneDropRate;
+    private final boolean allowStartingHealthTweaks;
+    private final int startingHealth;
+
+    public ConfigReloadMessage(ConfigHandler.Snapshot config) {
+        this(config.heartStackSize, config.boneDropRate, config.allowStartingHealthTweaks, config.startingHealth);
+    }
+
+    private ConfigReloadMessage(int heartStackSize, double boneDropRate, boolean allowStartingHealthTweaks, int startingHealth) {
+        this.heartStackSize = heartStackSize;
+        this.boneDropRate = boneDropRate;
+        this.allowStartingHealthTweaks = allowStartingHealthTweaks;
+        this.startingHealth = startingHealth;
+    }
+
+    public static void encode(ConfigReloadMessage msg, PacketBuffer buf) {
+        buf.writeVarInt(msg.heartStackSize);
+        buf.writeDouble(msg.boneDropRate);
+        buf.writeBoolean(msg.allowStartingHealthTweaks);
+        buf.writeVarInt(msg.startingHealth);
+    }
+
+    public static ConfigReloadMessage decode(PacketBuffer buf) {
+        return new ConfigReloadMessage(buf.readVarInt(), buf.readDouble(), buf.readBoolean(), buf.readVarInt());
+    }
+
+    public static void handle(ConfigReloadMessage msg, Supplier<NetworkEvent.Context> ctx) {
+        //the integrated server shares its config with the client and has already reloaded it
+        if (!ctx.get().getNetworkManager().isLocalChannel()) {
+            ctx.get().enqueueWork(() -> ConfigHandler.applyServerValues(msg.heartStackSize, msg.boneDropRate, msg.allowStartingHealthTweaks, msg.startingHealth));
+        }
+        ctx.get().setPacketHandled(true);
+    }
+}
@@ -0,0 +1,123 @@
+package sora.bhc.network;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.server.management.PlayerList;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.network.PacketDistributor;
+import net.minecraftforge.fml.server.ServerLifecycleHooks;
+import sora.bhc.Reference;
+import sora.bhc.util.HeartType;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Sends changed per-type heart totals to the player and everyone tracking them, batched into at most one
+ * {@link HeartSyncMessage} per recipient and tick.
+ */
+@Mod.EventBusSubscriber(modid = Reference.MODID)
+public class HeartSync {
+
+    private static final int ALL = (1 << HeartType.count()) - 1;
+
+    private static final Map<UUID, int[]> hearts = new HashMap<>();
+    private static final Object2IntMap<UUID> changed = new Object2IntOpenHashMap<>();
+    private static final Map<UUID, Set<UUID>> watchers = new HashMap<>();
+    private static final Map<UUID, Set<UUID>> snapshots = new HashMap<>();
+
+    /**
+     * records the current half hearts per type of the player, only types that differ from the last call are sent
+     */
+    public static void update(ServerPlayerEntity player, int[] values) {
+        int[] current = hearts.computeIfAbsent(player.getUniqueID(), id -> new int[HeartType.count()]);
+        int mask = 0;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] != values[i]) {
+                current[i] = values[i];
+                mask |= 1 << i;
+            }
+        }
+        if (mask != 0) changed.put(player.getUniqueID(), changed.getInt(player.getUniqueID()) | mask);
+    }
+
+    @SubscribeEvent
+    public static void onLogin(PlayerEvent.PlayerLoggedInEvent event) {
+        requestSnapshot(event.getPlayer().getUniqueID(), event.getPlayer().getUniqueID());
+    }
+
+    @SubscribeEvent
+    public static void onStartTracking(PlayerEvent.StartTracking event) {
+        if (!(event.getTarget() instanceof PlayerEntity)) return;
+        UUID target = event.getTarget().getUniqueID();
+        watchers.computeIfAbsent(target, id -> new HashSet<>()).add(event.getPlayer().getUniqueID());
+        requestSnapshot(event.getPlayer().getUniqueID(), target);
+    }
+
+    @SubscribeEvent
+    public static void onStopTracking(PlayerEvent.StopTracking event) {
+        if (!(event.getTarget() instanceof PlayerEntity)) return;
+        Set<UUID> set = watchers.get(event.getTarget().getUniqueID());
+        if (set != null) set.remove(event.getPlayer().getUniqueID());
+    }
+
+    @SubscribeEvent
+    public static void onLogout(PlayerEvent.PlayerLoggedOutEvent event) {
+        forget(event.getPlayer().getUniqueID());
+    }
+
+    /**
+     * drops everything known about a player, for players that never log out such as fake players
+     */
+    public static void forget(UUID id) {
+        hearts.remove(id);
+        changed.removeInt(id);
+        watchers.remove(id);
+        snapshots.remove(id);
+        for (Set<UUID> set : watchers.values()) set.remove(id);
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || (changed.isEmpty() && snapshots.isEmpty())) return;
+        PlayerList players = ServerLifecycleHooks.getCurrentServer().getPlayerList();
+        Map<UUID, HeartSyncMessage> batches = new HashMap<>();
+        for (Map.Entry<UUID, Set<UUID>> snapshot : snapshots.entrySet()) {
+            for (UUID target : snapshot.getValue()) {
+                int[] values = hearts.get(target);
+                ServerPlayerEntity player = players.getPlayerByUUID(target);
+                if (values != null && player != null) {
+                    batches.computeIfAbsent(snapshot.getKey(), id -> new HeartSyncMessage()).add(player.getEntityId(), ALL, values);
+                }
+            }
+        }
+        snapshots.clear();
+        for (Object2IntMap.Entry<UUID> entry : changed.object2IntEntrySet()) {
+            ServerPlayerEntity player = players.getPlayerByUUID(entry.getKey());
+            if (player == null) continue;
+            int[] values = hearts.get(entry.getKey());
+            batches.computeIfAbsent(entry.getKey(), id -> new HeartSyncMessage()).add(player.getEntityId(), entry.getIntValue(), values);
+            for (UUID watcher : watchers.getOrDefault(entry.getKey(), Collections.emptySet())) {
+                batches.computeIfAbsent(watcher, id -> new HeartSyncMessage()).add(player.getEntityId(), entry.getIntValue(), values);
+            }
+        }
+        changed.clear();
+        batches.forEach((recipient, msg) -> {
+            ServerPlayerEntity player = players.getPlayerByUUID(recipient);
+            if (player != null) PacketHandler.CHANNEL.send(PacketDistributor.PLAYER.with(() -> player), msg);
+        });
+    }
+
+    private static void requestSnapshot(UUID recipient, UUID target) {
+        snapshots.computeIfAbsent(recipient, id -> new HashSet<>()).add(target);
+    }
+}
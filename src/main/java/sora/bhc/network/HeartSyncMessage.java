@@ -0,0 +1,87 @@
+package sora.bhc.network;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.fml.DistExecutor;
+import net.minecraftforge.fml.network.NetworkEvent;
+import sora.bhc.client.ClientHeartData;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-type heart totals of any number of players. Each entry carries a bit mask of the heart types that changed,
+ * followed by the new value of only those types, all as varints.
+ */
+public class HeartSyncMessage {
+
+    private final IntArrayList entities;
+    private final IntArrayList masks;
+    private final IntArrayList values;
+
+    public HeartSyncMessage() {
+        this(new IntArrayList(), new IntArrayList(), new IntArrayList());
+    }
+
+    private HeartSyncMessage(IntArrayList entities, IntArrayList masks, IntArrayList values) {
+        this.entities = entities;
+        this.masks = masks;
+        this.values = values;
+    }
+
+    public void add(int entityId, int mask, int[] hearts) {
+        entities.add(entityId);
+        masks.add(mask);
+        for (int i = 0; i < hearts.length; i++) {
+            if ((mask & (1 << i)) != 0) values.add(hearts[i]);
+        }
+    }
+
+    public boolean isEmpty() {
+        return entities.isEmpty();
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        int value = 0;
+        for (int i = 0; i < entities.size(); i++) {
+            int mask = masks.getInt(i);
+            consumer.accept(entities.getInt(i), mask, values, value);
+            value += Integer.bitCount(mask);
+        }
+    }
+
+    public static void encode(HeartSyncMessage msg, PacketBuffer buf) {
+        buf.writeVarInt(msg.entities.size());
+        int value = 0;
+        for (int i = 0; i < msg.entities.size(); i++) {
+            int mask = msg.masks.getInt(i);
+            buf.writeVarInt(msg.entities.getInt(i));
+            buf.writeVarInt(mask);
+            for (int j = Integer.bitCount(mask); j > 0; j--) buf.writeVarInt(msg.values.getInt(value++));
+        }
+    }
+
+    public static HeartSyncMessage decode(PacketBuffer buf) {
+        int size = buf.readVarInt();
+        HeartSyncMessage msg = new HeartSyncMessage(new IntArrayList(size), new IntArrayList(size), new IntArrayList());
+        for (int i = 0; i < size; i++) {
+            msg.entities.add(buf.readVarInt());
+            int mask = buf.readVarInt();
+            msg.masks.add(mask);
+            for (int j = Integer.bitCount(mask); j > 0; j--) msg.values.add(buf.readVarInt());
+        }
+        return msg;
+    }
+
+    public static void handle(HeartSyncMessage msg, Supplier<NetworkEvent.Context> ctx) {
+        ctx.get().enqueueWork(() -> DistExecutor.runWhenOn(Dist.CLIENT, () -> () -> ClientHeartData.apply(msg)));
+        ctx.get().setPacketHandled(true);
+    }
+
+    public interface EntryConsumer {
+        /**
+         * @param values the changed values of all entries, this entry's start at {@code offset} in mask bit order
+         */
+        void accept(int entityId, int mask, IntArrayList values, int offset);
+    }
+}
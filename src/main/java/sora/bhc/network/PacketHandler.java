@@ -0,0 +1,24 @@
+package sora.bhc.network;
+
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.fml.network.NetworkRegistry;
+import net.minecraftforge.fml.network.simple.SimpleChannel;
+import sora.bhc.Reference;
+
+public class PacketHandler {
+
+    private static final String PROTOCOL_VERSION = "2";
+
+    public static final SimpleChannel CHANNEL = NetworkRegistry.newSimpleChannel(
+            new ResourceLocation(Reference.MODID, "main"),
+            () -> PROTOCOL_VERSION,
+            PROTOCOL_VERSION::equals,
+            PROTOCOL_VERSION::equals
+    );
+
+    public static void register() {
+        int id = 0;
+        CHANNEL.registerMessage(id++, HeartSyncMessage.class, HeartSyncMessage::encode, HeartSyncMessage::decode, HeartSyncMessage::handle);
+        CHANNEL.registerMessage(id++, ConfigReloadMessage.class, ConfigReloadMessage::encode, ConfigReloadMessage::decode, ConfigReloadMessage::handle);
+    }
+}
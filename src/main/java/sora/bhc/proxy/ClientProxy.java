@@ -1,10 +1,13 @@
 package sora.bhc.proxy;
 
 import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.ScreenManager;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.world.World;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
+import sora.bhc.client.HeartPendantScreen;
+import sora.bhc.init.ModItems;
 
 @OnlyIn(Dist.CLIENT)
 public class ClientProxy extends CommonProxy {
@@ -21,7 +24,11 @@ public class ClientProxy extends CommonProxy {
 
     @Override
     public void CommonSetup(){
+    }
 
+    @Override
+    public void ClientSetup(){
+        ScreenManager.registerFactory(ModItems.HEART_PENDANT_CONTAINER, HeartPendantScreen::new);
     }
 
 
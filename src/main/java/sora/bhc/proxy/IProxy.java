@@ -13,4 +13,7 @@ public interface IProxy {
   }
 
   public void CommonSetup();
+
+  default void ClientSetup(){
+  }
 }
@@ -18,6 +18,6 @@ public class BaubleyHeartCanistersCreativeTab extends ItemGroup {
   }
   @Override
   public ItemStack createIcon() {
-    return new ItemStack(ModItems.RED_HEART_CANISTER);
+    return new ItemStack(ModItems.HEART_CANISTERS[0]);
   }
 }
@@ -1,17 +1,127 @@
 package sora.bhc.util;
 
+import net.minecraft.nbt.ListNBT;
+import net.minecraft.nbt.StringNBT;
+import net.minecraft.util.ResourceLocation;
+import sora.bhc.handler.HeartTypeLoader;
+import sora.bhc.handler.HeartTypeOrder;
+
+import javax.annotation.Nullable;
+
 /**
+ * A heart tier as defined in config/bhc/hearts.json. Every type has a dense {@link #index} in file order, which all
+ * per-type arrays (aggregation, sync, drops, the leaderboard) are indexed by, so names are only looked at while
+ * loading config files and parsing commands. Pendants and the event journal save hearts by that index too, so the
+ * order is part of the save format: {@link HeartTypeOrder} refuses to start a world with types reordered or removed.
+ *
  * @author UpcraftLP
  */
-public enum HeartType {
-    RED(10),
-    YELLOW(20),
-    GREEN(30),
-    BLUE(40);
+public final class HeartType {
 
+    /** {@link sora.bhc.network.HeartSyncMessage} sends one mask bit per type */
+    public static final int MAX_TYPES = 31;
+
+    public final int index;
+    public final String name;
     public final int healAmount;
+    /** maximum canisters of this type that count towards max health, 0 to use heartStackSize */
+    public final int cap;
+    /** heart category in drops.json that drops this type */
+    public final String dropCategory;
+    /** one heart of this type in the compact health bar */
+    public final ResourceLocation texture;
 
-    HeartType(int healAmount) {
+    public HeartType(int index, String name, int healAmount, int cap, String dropCategory, ResourceLocation texture) {
+        this.index = index;
+        this.name = name;
         this.healAmount = healAmount;
+        this.cap = cap;
+        this.dropCategory = dropCategory;
+        this.texture = texture;
+    }
+
+    /**
+     * @return every type in index order, do not modify
+     */
+    public static HeartType[] values() {
+        return Registry.TYPES;
+    }
+
+    public static int count() {
+        return Registry.TYPES.length;
+    }
+
+    public static HeartType get(int index) {
+        return Registry.TYPES[index];
+    }
+
+    @Nullable
+    public static HeartType byName(String name) {
+        for (HeartType type : Registry.TYPES) {
+            if (type.name.equals(name)) return type;
+        }
+        return null;
+    }
+
+    /**
+     * @return the name of every type in index order, saved next to per-type arrays so they can be matched by name
+     */
+    public static ListNBT writeNames() {
+        ListNBT names = new ListNBT();
+        for (HeartType type : Registry.TYPES) names.add(StringNBT.valueOf(type.name));
+        return names;
+    }
+
+    /**
+     * @return for each saved name, the index of the type with that name now, or -1 if there is none
+     */
+    public static int[] readIndices(ListNBT names) {
+        int[] indices = new int[names.size()];
+        for (int i = 0; i < indices.length; i++) {
+            HeartType type = byName(names.getString(i));
+            indices[i] = type != null ? type.index : -1;
+        }
+        return indices;
+    }
+
+    /**
+     * @return the maximum number of canisters of this type that count, also their stack size
+     */
+    public int getLimit(int heartStackSize) {
+        return cap > 0 ? cap : heartStackSize;
+    }
+
+    /**
+     * @return the maximum half hearts of each type, do not modify; cached until heartStackSize changes
+     */
+    public static int[] getLimits(int heartStackSize) {
+        Limits limits = Registry.limits;
+        if (limits == null || limits.heartStackSize != heartStackSize) {
+            int[] values = new int[Registry.TYPES.length];
+            for (HeartType type : Registry.TYPES) values[type.index] = type.getLimit(heartStackSize) * 2;
+            limits = new Limits(heartStackSize, values);
+            Registry.limits = limits;
+        }
+        return limits.values;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static class Registry {
+        private static final HeartType[] TYPES = HeartTypeLoader.load();
+        private static volatile Limits limits;
+    }
+
+    private static class Limits {
+        private final int heartStackSize;
+        private final int[] values;
+
+        Limits(int heartStackSize, int[] values) {
+            this.heartStackSize = heartStackSize;
+            this.values = values;
+        }
     }
 }
@@ -2,26 +2,100 @@ package sora.bhc.util;
 
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
+import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.items.ItemStackHandler;
 import sora.bhc.Reference;
+import sora.bhc.core.PendantCodec;
+import sora.bhc.init.ModItems;
+import sora.bhc.metrics.BHCMetrics;
 
 /**
+ * Pendant contents are stored as one unsigned byte per {@link HeartType} slot, by index, under {@link #HEARTS}, since every slot
+ * can only ever hold canisters of its own type. The older full item list is still read, and replaced on the next write.
+ *
  * @author UpcraftLP
  */
 public class InventoryUtil {
 
+    public static final String HEARTS = Reference.MODID + "_hearts";
+
     private static final String ITEMLIST = Reference.MODID + "_itemlist";
+    private static final String HEART_AMOUNT = "heart_amount";
 
-    public static ItemStackHandler createVirtualInventory(int slots, ItemStack stack) {
-        ItemStackHandler handler = new ItemStackHandler(slots);
-        CompoundNBT nbt = stack.hasTag() ? stack.getTag() : new CompoundNBT();
-        handler.deserializeNBT(nbt.getCompound(ITEMLIST));
+    public static PendantInventory createVirtualInventory(int slots, ItemStack stack) {
+        int[] counts = readCounts(stack, slots);
+        PendantInventory handler = new PendantInventory(slots);
+        for (int i = 0; i < slots; i++) {
+            if (counts[i] > 0) handler.setStackInSlot(i, new ItemStack(ModItems.HEART_CANISTERS[i], counts[i]));
+        }
+        handler.clearDirty();
         return handler;
     }
 
-    public static void serializeInventory(ItemStackHandler itemHandler, ItemStack stack) {
-        CompoundNBT nbt = stack.hasTag() ? stack.getTag() : new CompoundNBT();
-        nbt.put(ITEMLIST, itemHandler.serializeNBT());
-        stack.setTag(nbt);
+    /**
+     * writes the slots that changed since the inventory was created or last serialized
+     */
+    public static void serializeInventory(PendantInventory itemHandler, ItemStack stack) {
+        CompoundNBT nbt = stack.getOrCreateTag();
+        boolean legacy = nbt.contains(ITEMLIST) || nbt.contains(HEART_AMOUNT);
+        if (!itemHandler.isDirty() && !legacy) return;
+        int[] counts = new int[itemHandler.getSlots()];
+        for (int i = 0; i < counts.length; i++) counts[i] = itemHandler.getStackInSlot(i).getCount();
+        byte[] stored = nbt.contains(HEARTS, Constants.NBT.TAG_BYTE_ARRAY) ? nbt.getByteArray(HEARTS) : null;
+        if (stored == null || !PendantCodec.update(stored, counts, itemHandler.dirty)) {
+            stored = PendantCodec.encode(counts);
+            nbt.putByteArray(HEARTS, stored);
+        }
+        BHCMetrics.INVENTORY_WRITES.increment();
+        BHCMetrics.INVENTORY_BYTES.add(stored.length);
+        if (legacy) {
+            nbt.remove(ITEMLIST);
+            nbt.remove(HEART_AMOUNT);
+        }
+        itemHandler.clearDirty();
+    }
+
+    /**
+     * @return the number of canisters in each slot of the pendant, read from either storage format
+     */
+    public static int[] readCounts(ItemStack stack, int slots) {
+        int[] counts = new int[slots];
+        CompoundNBT nbt = stack.getTag();
+        if (nbt == null) return counts;
+        if (nbt.contains(HEARTS, Constants.NBT.TAG_BYTE_ARRAY)) {
+            PendantCodec.decode(nbt.getByteArray(HEARTS), counts);
+        }
+        else if (nbt.contains(ITEMLIST, Constants.NBT.TAG_COMPOUND)) {
+            ItemStackHandler legacy = new ItemStackHandler(slots);
+            legacy.deserializeNBT(nbt.getCompound(ITEMLIST));
+            for (int i = 0; i < Math.min(slots, legacy.getSlots()); i++) counts[i] = legacy.getStackInSlot(i).getCount();
+        }
+        return counts;
+    }
+
+    public static class PendantInventory extends ItemStackHandler {
+
+        private final boolean[] dirty;
+        private boolean anyDirty;
+
+        public PendantInventory(int slots) {
+            super(slots);
+            this.dirty = new boolean[slots];
+        }
+
+        @Override
+        protected void onContentsChanged(int slot) {
+            dirty[slot] = true;
+            anyDirty = true;
+        }
+
+        public boolean isDirty() {
+            return anyDirty;
+        }
+
+        public void clearDirty() {
+            for (int i = 0; i < dirty.length; i++) dirty[i] = false;
+            anyDirty = false;
+        }
     }
 }